@@ -0,0 +1,35 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel;
+
+import org.jboss.pnc.dto.Artifact;
+
+/**
+ * The few fields of a PNC {@link Artifact} which end up in a provenance.
+ */
+public record ArtifactProjection(String filename, String sha256, String identifier, String purl, String publicUrl) {
+
+    public static ArtifactProjection of(Artifact artifact) {
+        return new ArtifactProjection(
+                artifact.getFilename(),
+                artifact.getSha256(),
+                artifact.getIdentifier(),
+                artifact.getPurl(),
+                artifact.getPublicUrl());
+    }
+}
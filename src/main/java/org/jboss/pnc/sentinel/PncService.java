@@ -17,8 +17,21 @@
  */
 package org.jboss.pnc.sentinel;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import org.apache.http.pool.PoolStats;
 import org.jboss.pnc.client.BuildClient;
 import org.jboss.pnc.client.BuildConfigurationClient;
 import org.jboss.pnc.client.Configuration;
@@ -29,10 +42,28 @@ import org.jboss.pnc.dto.Artifact;
 import org.jboss.pnc.dto.Build;
 import org.jboss.pnc.dto.BuildConfiguration;
 import org.jboss.pnc.dto.BuildConfigurationRevision;
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.rest.api.endpoints.BuildEndpoint;
+import org.jboss.pnc.rest.api.parameters.PageParameters;
+import org.jboss.pnc.sentinel.cache.PncCache;
+import org.jboss.pnc.sentinel.cache.PncCache.RevisionKey;
+import org.jboss.pnc.sentinel.client.ArtifactProjectionClient;
+import org.jboss.pnc.sentinel.client.PncClientFactory;
+import org.jboss.pnc.sentinel.client.PrefetchingPageIterator;
+import org.jboss.pnc.sentinel.concurrent.SingleFlight;
 import org.jboss.pnc.sentinel.errors.ClientException;
+import org.jboss.pnc.sentinel.errors.NotFoundException;
+import org.jboss.pnc.sentinel.resilience.AdaptiveLimiter;
+import org.jboss.pnc.sentinel.resilience.LimiterStats;
+import org.jboss.pnc.sentinel.resilience.ResilienceStats;
+import org.jboss.pnc.sentinel.resilience.ResilientCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import jakarta.ws.rs.WebApplicationException;
+
 /**
  * A service to interact with the PNC build system.
  */
@@ -40,6 +71,14 @@ public class PncService {
 
     private static final Logger log = LoggerFactory.getLogger(PncService.class);
 
+    public static final String GET_BUILD = "getBuild";
+
+    public static final String GET_BUILD_CONFIG_REVISION = "getBuildConfigRevision";
+
+    public static final String GET_BUILT_ARTIFACTS = "getBuiltArtifacts";
+
+    public static final String GET_DEPENDENCIES = "getDependencies";
+
     final String apiUrl;
 
     public String getApiUrl() {
@@ -50,16 +89,107 @@ public class PncService {
 
     final BuildConfigurationClient buildConfigurationClient;
 
+    /**
+     * Used for the artifact listings, whose pages are requested explicitly.
+     */
+    final BuildEndpoint buildEndpoint;
+
+    /**
+     * Decodes only the artifact fields needed in a provenance.
+     */
+    final ArtifactProjectionClient projectionClient;
+
+    final int pageSize;
+
+    final int prefetchWindow;
+
+    /**
+     * Owns the HTTP connection pool shared by the PNC clients.
+     */
+    final PncClientFactory clientFactory;
+
+    /**
+     * Executor running the blocking PNC calls behind the asynchronous API.
+     */
+    final ExecutorService executor;
+
+    final PncCache cache;
+
+    /**
+     * Concurrent requests for the same data share a single PNC call.
+     */
+    final SingleFlight<String, Build> buildFlights = new SingleFlight<>();
+
+    final SingleFlight<RevisionKey, BuildConfigurationRevision> revisionFlights = new SingleFlight<>();
+
+    final SingleFlight<String, Collection<Artifact>> builtArtifactsFlights = new SingleFlight<>();
+
+    final SingleFlight<String, Collection<Artifact>> dependenciesFlights = new SingleFlight<>();
+
+    final SingleFlight<String, Collection<ArtifactProjection>> builtArtifactProjectionsFlights = new SingleFlight<>();
+
+    final SingleFlight<String, Collection<ArtifactProjection>> dependencyProjectionsFlights = new SingleFlight<>();
+
+    /**
+     * Hedging and circuit breaking of every PNC call, configured per method.
+     */
+    final ResilientCall buildCalls;
+
+    final ResilientCall revisionCalls;
+
+    final ResilientCall builtArtifactsCalls;
+
+    final ResilientCall dependenciesCalls;
+
+    /**
+     * Adapts the number of concurrent PNC calls to the capacity of PNC, {@code null} when disabled.
+     */
+    final AdaptiveLimiter limiter;
+
     public PncService(String apiUrl) {
+        this(apiUrl, PncServiceConfig.defaults());
+    }
+
+    public PncService(String apiUrl, PncServiceConfig config) {
         this.apiUrl = apiUrl;
 
-        buildClient = new BuildClient(getConfiguration());
-        buildConfigurationClient = new BuildConfigurationClient(getConfiguration());
+        clientFactory = new PncClientFactory(getConfiguration(), config.client());
+        buildClient = clientFactory.createBuildClient();
+        buildConfigurationClient = clientFactory.createBuildConfigurationClient();
+        buildEndpoint = clientFactory.createBuildEndpoint();
+        projectionClient = clientFactory.createArtifactProjectionClient();
+        pageSize = config.client().pageSize();
+        prefetchWindow = config.client().prefetchWindow();
+        executor = Executors.newCachedThreadPool(new PncThreadFactory());
+        cache = new PncCache(config.cache());
+
+        limiter = config.limiter().enabled()
+                ? new AdaptiveLimiter(config.limiter(), config.client().maxConnectionsPerRoute())
+                : null;
+        buildCalls = resilientCall(GET_BUILD, config);
+        revisionCalls = resilientCall(GET_BUILD_CONFIG_REVISION, config);
+        builtArtifactsCalls = resilientCall(GET_BUILT_ARTIFACTS, config);
+        dependenciesCalls = resilientCall(GET_DEPENDENCIES, config);
+    }
+
+    private ResilientCall resilientCall(String method, PncServiceConfig config) {
+        return new ResilientCall(method, config.resilience().get(method), executor, limiter);
+    }
+
+    /**
+     * Execute a single PNC request through the limiter, then the resilience of its method. The limiter is outermost so
+     * that being rejected by it does not count as a PNC failure in the circuit breaker.
+     */
+    private <T> T call(String method, ResilientCall calls, Supplier<T> request) {
+        return limiter == null ? calls.execute(request) : limiter.execute(method, () -> calls.execute(request));
     }
 
     public void close() {
         buildClient.close();
         buildConfigurationClient.close();
+        clientFactory.close();
+        executor.shutdown();
+        cache.close();
     }
 
     /**
@@ -87,6 +217,12 @@ public class PncService {
      * @return The {@link Build} object or {@code null} in case the {@link Build} could not be found.
      */
     public Build getBuild(String buildId) {
+        return cache.getBuild(
+                buildId,
+                id -> buildFlights.execute(id, () -> call(GET_BUILD, buildCalls, () -> fetchBuild(id))));
+    }
+
+    private Build fetchBuild(String buildId) {
         log.debug("Fetching Build from PNC with id '{}'", buildId);
         try {
             return buildClient.getSpecific(buildId);
@@ -115,6 +251,18 @@ public class PncService {
      *         {@link BuildConfigurationRevision} could not be found.
      */
     public BuildConfigurationRevision getBuildConfigRevision(String buildConfigId, Integer buildConfigRevision) {
+        return cache.getBuildConfigRevision(
+                buildConfigId,
+                buildConfigRevision,
+                key -> revisionFlights.execute(
+                        key,
+                        () -> call(
+                                GET_BUILD_CONFIG_REVISION,
+                                revisionCalls,
+                                () -> fetchBuildConfigRevision(key.id(), key.rev()))));
+    }
+
+    private BuildConfigurationRevision fetchBuildConfigRevision(String buildConfigId, Integer buildConfigRevision) {
         log.debug(
                 "Fetching BuildConfigRevision from PNC with id '{}' and rev '{}'",
                 buildConfigId,
@@ -131,6 +279,38 @@ public class PncService {
         }
     }
 
+    /**
+     * <p>
+     * Fetch the PNC {@link Build} identified by the particular {@code buildId} and the
+     * {@link BuildConfigurationRevision} it was built from, which is only known once the {@link Build} is available.
+     * </p>
+     *
+     * @param buildId Tbe {@link Build} identifier in PNC
+     * @return The {@link PncBuildRevision}
+     * @throws NotFoundException in case the {@link Build} or its {@link BuildConfigurationRevision} could not be found
+     */
+    public PncBuildRevision getBuildRevision(String buildId) {
+        Build build = getBuild(buildId);
+        BuildConfigurationRevision buildConfigRevision = build == null || build.getBuildConfigRevision() == null ? null
+                : getBuildConfigRevision(
+                        build.getBuildConfigRevision().getId(),
+                        build.getBuildConfigRevision().getRev());
+        return buildRevision(buildId, build, buildConfigRevision);
+    }
+
+    private static PncBuildRevision buildRevision(
+            String buildId,
+            Build build,
+            BuildConfigurationRevision buildConfigRevision) {
+        if (build == null) {
+            throw new NotFoundException("Build with id '{}' was not found in PNC", buildId);
+        }
+        if (buildConfigRevision == null) {
+            throw new NotFoundException("BuildConfigRevision of build with id '{}' was not found in PNC", buildId);
+        }
+        return new PncBuildRevision(build, buildConfigRevision);
+    }
+
     /**
      * <p>
      * Fetch all built artifacts of a PNC {@link Build} identified by the particular {@code buildId}.
@@ -140,12 +320,15 @@ public class PncService {
      * @return The collection of {@link Artifact} objects or {@code null} in case the {@link Build} could not be found.
      */
     public Collection<Artifact> getBuiltArtifacts(String buildID) {
+        return cache.getBuiltArtifacts(
+                buildID,
+                () -> isFinished(buildID),
+                id -> builtArtifactsFlights.execute(id, () -> fetchBuiltArtifacts(id)));
+    }
+
+    private Collection<Artifact> fetchBuiltArtifacts(String buildID) {
         log.debug("Fetching all built artifacts from PNC build with id '{}'", buildID);
-        try {
-            return buildClient.getBuiltArtifacts(buildID).getAll();
-        } catch (RemoteResourceException ex) {
-            throw new ClientException("Dependencies could not be retrieved because PNC responded with an error", ex);
-        }
+        return collect(builtArtifactPages(buildID));
     }
 
     /**
@@ -157,11 +340,407 @@ public class PncService {
      * @return The collection of {@link Artifact} objects or {@code null} in case the {@link Build} could not be found.
      */
     public Collection<Artifact> getDependencies(String buildID) {
+        return cache.getDependencies(
+                buildID,
+                () -> isFinished(buildID),
+                id -> dependenciesFlights.execute(id, () -> fetchDependencies(id)));
+    }
+
+    private Collection<Artifact> fetchDependencies(String buildID) {
         log.debug("Fetching all dependencies from PNC build with id '{}'", buildID);
+        return collect(dependencyPages(buildID));
+    }
+
+    /**
+     * Whether the artifact lists of the build can no longer change, from the build fetched (or cached) before the lists
+     * are requested. A build which cannot be fetched is considered still running.
+     */
+    private boolean isFinished(String buildID) {
         try {
-            return buildClient.getDependencyArtifacts(buildID).getAll();
-        } catch (RemoteResourceException ex) {
-            throw new ClientException("Dependencies could not be retrieved because PNC responded with an error", ex);
+            Build build = getBuild(buildID);
+            return build != null && build.getStatus() != null && build.getStatus().isFinal();
+        } catch (ClientException ex) {
+            log.debug("Status of build with id '{}' is unknown, its artifacts are cached shortly", buildID, ex);
+            return false;
+        }
+    }
+
+    /**
+     * <p>
+     * Fetch the projections of all built artifacts of a PNC {@link Build} identified by the particular {@code buildId}.
+     * </p>
+     *
+     * <p>
+     * Like {@link #getBuiltArtifacts(String)}, except that only the fields needed in a provenance are decoded from the
+     * PNC responses, and the projections are cached instead of the full DTOs.
+     * </p>
+     *
+     * @param buildID Tbe {@link Build} identifier in PNC
+     * @return The collection of {@link ArtifactProjection} objects
+     */
+    public Collection<ArtifactProjection> getBuiltArtifactProjections(String buildID) {
+        return cache.getBuiltArtifactProjections(
+                buildID,
+                () -> isFinished(buildID),
+                id -> builtArtifactProjectionsFlights.execute(id, () -> collect(builtArtifactProjectionPages(id))));
+    }
+
+    /**
+     * <p>
+     * Fetch the projections of all dependencies of a PNC {@link Build} identified by the particular {@code buildId}.
+     * </p>
+     *
+     * <p>
+     * Like {@link #getDependencies(String)}, except that only the fields needed in a provenance are decoded from the
+     * PNC responses, and the projections are cached instead of the full DTOs.
+     * </p>
+     *
+     * @param buildID Tbe {@link Build} identifier in PNC
+     * @return The collection of {@link ArtifactProjection} objects
+     */
+    public Collection<ArtifactProjection> getDependencyProjections(String buildID) {
+        return cache.getDependencyProjections(
+                buildID,
+                () -> isFinished(buildID),
+                id -> dependencyProjectionsFlights.execute(id, () -> collect(dependencyProjectionPages(id))));
+    }
+
+    /**
+     * <p>
+     * Stream the built artifacts of a PNC {@link Build} identified by the particular {@code buildId}, page by page.
+     * </p>
+     *
+     * <p>
+     * Unlike {@link #getBuiltArtifacts(String)} the artifacts are not collected in memory: only the pages within the
+     * prefetch window are requested from PNC ahead of the stream consumer. An already cached list is streamed as is.
+     * </p>
+     *
+     * @param buildID Tbe {@link Build} identifier in PNC
+     * @return The lazily populated stream of {@link Artifact} objects
+     */
+    public Stream<Artifact> streamBuiltArtifacts(String buildID) {
+        Collection<Artifact> cached = cache.getBuiltArtifactsIfPresent(buildID);
+        if (cached != null) {
+            return cached.stream();
+        }
+
+        log.debug("Streaming built artifacts from PNC build with id '{}'", buildID);
+        return builtArtifactPages(buildID).stream();
+    }
+
+    /**
+     * <p>
+     * Stream the dependencies of a PNC {@link Build} identified by the particular {@code buildId}, page by page.
+     * </p>
+     *
+     * <p>
+     * Unlike {@link #getDependencies(String)} the artifacts are not collected in memory: only the pages within the
+     * prefetch window are requested from PNC ahead of the stream consumer. An already cached list is streamed as is.
+     * </p>
+     *
+     * @param buildID Tbe {@link Build} identifier in PNC
+     * @return The lazily populated stream of {@link Artifact} objects
+     */
+    public Stream<Artifact> streamDependencies(String buildID) {
+        Collection<Artifact> cached = cache.getDependenciesIfPresent(buildID);
+        if (cached != null) {
+            return cached.stream();
+        }
+
+        log.debug("Streaming dependencies from PNC build with id '{}'", buildID);
+        return dependencyPages(buildID).stream();
+    }
+
+    /**
+     * <p>
+     * Stream the projections of the built artifacts of a PNC {@link Build} identified by the particular
+     * {@code buildId}, page by page.
+     * </p>
+     *
+     * <p>
+     * Like {@link #streamBuiltArtifacts(String)}, except that only the fields needed in a provenance are decoded from
+     * the PNC responses. The listing of a finished build never changes: its projections are loaded once through
+     * {@link #getBuiltArtifactProjections(String)}, shared with the concurrent callers and cached. Only the listings of
+     * running builds are streamed. An already cached list of full DTOs is projected as is.
+     * </p>
+     *
+     * @param buildID Tbe {@link Build} identifier in PNC
+     * @return The lazily populated stream of {@link ArtifactProjection} objects
+     */
+    public Stream<ArtifactProjection> streamBuiltArtifactProjections(String buildID) {
+        Collection<ArtifactProjection> projections = cache.getBuiltArtifactProjectionsIfPresent(buildID);
+        if (projections != null) {
+            return projections.stream();
+        }
+        Collection<Artifact> artifacts = cache.getBuiltArtifactsIfPresent(buildID);
+        if (artifacts != null) {
+            return artifacts.stream().map(ArtifactProjection::of);
+        }
+        if (cache.isEnabled() && isFinished(buildID)) {
+            return getBuiltArtifactProjections(buildID).stream();
+        }
+
+        log.debug("Streaming projections of built artifacts from PNC build with id '{}'", buildID);
+        return builtArtifactProjectionPages(buildID).stream();
+    }
+
+    /**
+     * <p>
+     * Stream the projections of the dependencies of a PNC {@link Build} identified by the particular {@code buildId},
+     * page by page.
+     * </p>
+     *
+     * <p>
+     * Like {@link #streamDependencies(String)}, except that only the fields needed in a provenance are decoded from the
+     * PNC responses. The listing of a finished build never changes: its projections are loaded once through
+     * {@link #getDependencyProjections(String)}, shared with the concurrent callers and cached. Only the listings of
+     * running builds are streamed. An already cached list of full DTOs is projected as is.
+     * </p>
+     *
+     * @param buildID Tbe {@link Build} identifier in PNC
+     * @return The lazily populated stream of {@link ArtifactProjection} objects
+     */
+    public Stream<ArtifactProjection> streamDependencyProjections(String buildID) {
+        Collection<ArtifactProjection> projections = cache.getDependencyProjectionsIfPresent(buildID);
+        if (projections != null) {
+            return projections.stream();
+        }
+        Collection<Artifact> artifacts = cache.getDependenciesIfPresent(buildID);
+        if (artifacts != null) {
+            return artifacts.stream().map(ArtifactProjection::of);
+        }
+        if (cache.isEnabled() && isFinished(buildID)) {
+            return getDependencyProjections(buildID).stream();
+        }
+
+        log.debug("Streaming projections of dependencies from PNC build with id '{}'", buildID);
+        return dependencyProjectionPages(buildID).stream();
+    }
+
+    private PrefetchingPageIterator<Artifact> builtArtifactPages(String buildID) {
+        return pages(
+                GET_BUILT_ARTIFACTS,
+                builtArtifactsCalls,
+                pageParameters -> buildEndpoint.getBuiltArtifacts(buildID, pageParameters),
+                "Built artifacts could not be retrieved because PNC responded with an error");
+    }
+
+    private PrefetchingPageIterator<Artifact> dependencyPages(String buildID) {
+        return pages(
+                GET_DEPENDENCIES,
+                dependenciesCalls,
+                pageParameters -> buildEndpoint.getDependencyArtifacts(buildID, pageParameters),
+                "Dependencies could not be retrieved because PNC responded with an error");
+    }
+
+    private PrefetchingPageIterator<ArtifactProjection> builtArtifactProjectionPages(String buildID) {
+        return pages(
+                GET_BUILT_ARTIFACTS,
+                builtArtifactsCalls,
+                pageParameters -> projectionClient.getBuiltArtifacts(buildID, pageParameters),
+                "Built artifacts could not be retrieved because PNC responded with an error");
+    }
+
+    private PrefetchingPageIterator<ArtifactProjection> dependencyProjectionPages(String buildID) {
+        return pages(
+                GET_DEPENDENCIES,
+                dependenciesCalls,
+                pageParameters -> projectionClient.getDependencyArtifacts(buildID, pageParameters),
+                "Dependencies could not be retrieved because PNC responded with an error");
+    }
+
+    /**
+     * The pages of a listing are requested concurrently, up to the prefetch window, instead of one after another. Every
+     * page is a PNC request of its own for the limiter and the resilience of the {@code method}.
+     */
+    private <T> PrefetchingPageIterator<T> pages(
+            String method,
+            ResilientCall calls,
+            Function<PageParameters, Page<T>> endpoint,
+            String errorMessage) {
+        return new PrefetchingPageIterator<>(pageIndex -> {
+            PageParameters pageParameters = new PageParameters();
+            pageParameters.setPageIndex(pageIndex);
+            pageParameters.setPageSize(pageSize);
+            return call(method, calls, () -> {
+                try {
+                    return endpoint.apply(pageParameters);
+                } catch (WebApplicationException ex) {
+                    throw new ClientException(errorMessage, ex);
+                }
+            });
+        }, prefetchWindow, executor);
+    }
+
+    private static <T> Collection<T> collect(PrefetchingPageIterator<T> pages) {
+        try (pages) {
+            List<T> items = new ArrayList<>();
+            pages.forEachRemaining(items::add);
+            return items;
+        }
+    }
+
+    /**
+     * Drop everything cached about the PNC {@link Build} identified by the particular {@code buildId}.
+     *
+     * @param buildId Tbe {@link Build} identifier in PNC
+     */
+    public void invalidate(String buildId) {
+        cache.invalidate(buildId);
+    }
+
+    /**
+     * @return The hit, miss and eviction counters of the PNC data caches, keyed by cache name.
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * @return The statistics of the HTTP connection pool shared by the PNC clients.
+     */
+    public PoolStats getConnectionPoolStats() {
+        return clientFactory.getPoolStats();
+    }
+
+    /**
+     * @return The call, failure, circuit breaker and hedging counters of the PNC calls, keyed by method name.
+     */
+    public Map<String, ResilienceStats> getResilienceStats() {
+        Map<String, ResilienceStats> stats = new LinkedHashMap<>();
+        stats.put(GET_BUILD, buildCalls.getStats());
+        stats.put(GET_BUILD_CONFIG_REVISION, revisionCalls.getStats());
+        stats.put(GET_BUILT_ARTIFACTS, builtArtifactsCalls.getStats());
+        stats.put(GET_DEPENDENCIES, dependenciesCalls.getStats());
+        return stats;
+    }
+
+    /**
+     * @return The state of the adaptive limit of concurrent PNC calls, or {@code null} when disabled.
+     */
+    public LimiterStats getLimiterStats() {
+        return limiter == null ? null : limiter.getStats();
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBuild(String)}.
+     */
+    public CompletableFuture<Build> getBuildAsync(String buildId) {
+        return CompletableFuture.supplyAsync(() -> getBuild(buildId), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBuildConfigRevision(String, Integer)}.
+     */
+    public CompletableFuture<BuildConfigurationRevision> getBuildConfigRevisionAsync(
+            String buildConfigId,
+            Integer buildConfigRevision) {
+        return CompletableFuture
+                .supplyAsync(() -> getBuildConfigRevision(buildConfigId, buildConfigRevision), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBuildRevision(String)}.
+     */
+    public CompletableFuture<PncBuildRevision> getBuildRevisionAsync(String buildId) {
+        return CompletableFuture.supplyAsync(() -> getBuildRevision(buildId), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBuiltArtifacts(String)}.
+     */
+    public CompletableFuture<Collection<Artifact>> getBuiltArtifactsAsync(String buildID) {
+        return CompletableFuture.supplyAsync(() -> getBuiltArtifacts(buildID), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getDependencies(String)}.
+     */
+    public CompletableFuture<Collection<Artifact>> getDependenciesAsync(String buildID) {
+        return CompletableFuture.supplyAsync(() -> getDependencies(buildID), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getBuiltArtifactProjections(String)}.
+     */
+    public CompletableFuture<Collection<ArtifactProjection>> getBuiltArtifactProjectionsAsync(String buildID) {
+        return CompletableFuture.supplyAsync(() -> getBuiltArtifactProjections(buildID), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getDependencyProjections(String)}.
+     */
+    public CompletableFuture<Collection<ArtifactProjection>> getDependencyProjectionsAsync(String buildID) {
+        return CompletableFuture.supplyAsync(() -> getDependencyProjections(buildID), executor);
+    }
+
+    /**
+     * <p>
+     * Fetch everything needed to generate the provenance of the PNC {@link Build} identified by the particular
+     * {@code buildId}.
+     * </p>
+     *
+     * <p>
+     * The build, its built artifacts and its dependencies are requested concurrently. The
+     * {@link BuildConfigurationRevision} coordinates are only known once the {@link Build} is available, so that
+     * request is chained after the build one. Use {@link #fetchBuildData(String, String, Integer)} when the coordinates
+     * are already known to run all the requests in parallel.
+     * </p>
+     *
+     * @param buildId Tbe {@link Build} identifier in PNC
+     * @return A future completed with the {@link PncBuildData} once the slowest request completes, or completed
+     *         exceptionally with a {@link NotFoundException} in case the {@link Build} could not be found.
+     */
+    public CompletableFuture<PncBuildData> fetchBuildData(String buildId) {
+        return combine(getBuildRevisionAsync(buildId), getBuiltArtifactsAsync(buildId), getDependenciesAsync(buildId));
+    }
+
+    /**
+     * <p>
+     * Fetch everything needed to generate the provenance of the PNC {@link Build} identified by the particular
+     * {@code buildId}, when the {@link BuildConfigurationRevision} coordinates are already known. All the four PNC
+     * requests run in parallel.
+     * </p>
+     *
+     * @param buildId Tbe {@link Build} identifier in PNC
+     * @param buildConfigId The {@link BuildConfiguration} identifier in PNC
+     * @param buildConfigRevision The {@link BuildConfiguration} revision in PNC
+     * @return A future completed with the {@link PncBuildData} once the slowest request completes, or completed
+     *         exceptionally with a {@link NotFoundException} in case the {@link Build} could not be found.
+     */
+    public CompletableFuture<PncBuildData> fetchBuildData(
+            String buildId,
+            String buildConfigId,
+            Integer buildConfigRevision) {
+        CompletableFuture<PncBuildRevision> buildRevision = getBuildAsync(buildId).thenCombine(
+                getBuildConfigRevisionAsync(buildConfigId, buildConfigRevision),
+                (build, revision) -> buildRevision(buildId, build, revision));
+        return combine(buildRevision, getBuiltArtifactsAsync(buildId), getDependenciesAsync(buildId));
+    }
+
+    private CompletableFuture<PncBuildData> combine(
+            CompletableFuture<PncBuildRevision> buildRevision,
+            CompletableFuture<Collection<Artifact>> builtArtifacts,
+            CompletableFuture<Collection<Artifact>> dependencies) {
+
+        return CompletableFuture.allOf(buildRevision, builtArtifacts, dependencies)
+                .thenApply(
+                        ignored -> new PncBuildData(
+                                buildRevision.join().build(),
+                                buildRevision.join().buildConfigRevision(),
+                                builtArtifacts.join(),
+                                dependencies.join()));
+    }
+
+    private static class PncThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "pnc-client-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 }
@@ -0,0 +1,290 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import io.smallrye.config.WithDefault;
+import io.smallrye.config.WithDefaults;
+
+/**
+ * Tuning of the {@link PncService} and of the layers around the PNC REST clients.
+ */
+@ConfigMapping(prefix = "sentinel.pnc")
+public interface PncServiceConfig {
+
+    HttpClientConfig client();
+
+    CacheConfig cache();
+
+    /**
+     * Hedging and circuit breaking of the PNC calls, keyed by the name of the {@link PncService} method:
+     * {@code getBuild}, {@code getBuildConfigRevision}, {@code getBuiltArtifacts} and {@code getDependencies}. Methods
+     * which are not configured use the defaults.
+     */
+    @WithDefaults
+    Map<String, CallConfig> resilience();
+
+    LimiterConfig limiter();
+
+    /**
+     * The HTTP connection pool shared by all the PNC REST clients.
+     */
+    interface HttpClientConfig {
+
+        /**
+         * Maximum number of pooled connections.
+         */
+        @WithDefault("50")
+        int maxConnections();
+
+        /**
+         * Maximum number of pooled connections to a single host. All the requests go to the PNC host.
+         */
+        @WithDefault("20")
+        int maxConnectionsPerRoute();
+
+        /**
+         * Idle connections are closed after this time.
+         */
+        @WithDefault("PT60S")
+        Duration idleTimeout();
+
+        /**
+         * Maximum lifetime of a connection, regardless of the keep-alive duration advertised by the server.
+         */
+        @WithDefault("PT5M")
+        Duration connectionTtl();
+
+        /**
+         * Connections idle for longer than this time are checked before being reused.
+         */
+        @WithDefault("PT2S")
+        Duration validateAfterInactivity();
+
+        @WithDefault("PT10S")
+        Duration connectTimeout();
+
+        @WithDefault("PT60S")
+        Duration readTimeout();
+
+        /**
+         * How long to wait for a connection to be available in the pool.
+         */
+        @WithDefault("PT30S")
+        Duration connectionRequestTimeout();
+
+        /**
+         * Whether gzip/deflate compressed responses are negotiated with PNC.
+         */
+        @WithDefault("true")
+        boolean compression();
+
+        /**
+         * Number of artifacts requested per page of the artifact listings.
+         */
+        @WithDefault("100")
+        int pageSize();
+
+        /**
+         * Maximum number of pages of an artifact listing requested concurrently, ahead of the consumer.
+         */
+        @WithDefault("4")
+        int prefetchWindow();
+    }
+
+    interface CacheConfig {
+
+        /**
+         * Whether PNC responses are cached in memory.
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Maximum number of cached builds.
+         */
+        @WithDefault("10000")
+        long maxBuilds();
+
+        /**
+         * Maximum number of cached build config revisions.
+         */
+        @WithDefault("10000")
+        long maxRevisions();
+
+        /**
+         * Maximum number of artifacts held in each cache of artifact lists: the built and dependency artifacts, as full
+         * DTOs or as projections.
+         */
+        @WithDefault("200000")
+        long maxArtifacts();
+
+        /**
+         * How long the data of a build which is not finished yet is kept. Data of finished builds never changes and is
+         * only evicted because of the size limits.
+         */
+        @WithDefault("PT30S")
+        Duration runningBuildTtl();
+
+        DiskCacheConfig disk();
+    }
+
+    /**
+     * The persistent cache of the immutable PNC data, which survives restarts.
+     */
+    interface DiskCacheConfig {
+
+        /**
+         * Whether the data of finished builds and the build config revisions are also stored on the local disk.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Directory holding the cache files.
+         */
+        @WithDefault("pnc-cache")
+        String directory();
+
+        /**
+         * Size, in bytes, of the data file above which it is compacted. The oldest entries are dropped when the live
+         * ones alone exceed it.
+         */
+        @WithDefault("1073741824")
+        long maxSize();
+    }
+
+    interface CallConfig {
+
+        HedgeConfig hedge();
+
+        CircuitBreakerConfig circuitBreaker();
+    }
+
+    /**
+     * Sends a duplicate request when the first one is slower than usual, the first response wins.
+     */
+    interface HedgeConfig {
+
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Percentile of the recent latencies of the call after which the duplicate request is sent.
+         */
+        @WithDefault("95")
+        double percentile();
+
+        /**
+         * Lower bound of the delay after which the duplicate request is sent.
+         */
+        @WithDefault("PT0.05S")
+        Duration minDelay();
+
+        /**
+         * Delay after which the duplicate request is sent until enough latencies were observed.
+         */
+        @WithDefault("PT1S")
+        Duration delay();
+
+        /**
+         * Number of latencies to observe before relying on the percentile.
+         */
+        @WithDefault("20")
+        int minSamples();
+    }
+
+    /**
+     * Fails fast, without calling PNC, while PNC keeps failing.
+     */
+    interface CircuitBreakerConfig {
+
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Ratio of failed calls, among the last {@link #requestVolumeThreshold()} ones, which opens the circuit.
+         */
+        @WithDefault("0.5")
+        double failureRatio();
+
+        @WithDefault("20")
+        int requestVolumeThreshold();
+
+        /**
+         * How long the circuit stays open before a trial call is let through.
+         */
+        @WithDefault("PT30S")
+        Duration delay();
+    }
+
+    /**
+     * The adaptive limit of concurrent calls to PNC, shared by all the PNC calls.
+     */
+    interface LimiterConfig {
+
+        @WithDefault("true")
+        boolean enabled();
+
+        @WithDefault("20")
+        int initialLimit();
+
+        @WithDefault("1")
+        int minLimit();
+
+        /**
+         * Upper bound of the limit, there is no point in exceeding the size of the HTTP connection pool: it is capped
+         * to the maximum number of connections per route, all the calls going to the PNC host.
+         */
+        @WithDefault("20")
+        int maxLimit();
+
+        /**
+         * Factor applied to the limit when a call fails or is slow.
+         */
+        @WithDefault("0.9")
+        double backoffRatio();
+
+        /**
+         * How many times slower than the lowest recent latency a call can be before the limit is decreased.
+         */
+        @WithDefault("2.0")
+        double latencyTolerance();
+
+        /**
+         * How long a caller waits for a permit before failing.
+         */
+        @WithDefault("PT30S")
+        Duration queueTimeout();
+    }
+
+    /**
+     * Builds the configuration with all the default values, for usages outside of the CDI container.
+     *
+     * @return the default configuration
+     */
+    static PncServiceConfig defaults() {
+        return new SmallRyeConfigBuilder().withMapping(PncServiceConfig.class)
+                .build()
+                .getConfigMapping(PncServiceConfig.class);
+    }
+}
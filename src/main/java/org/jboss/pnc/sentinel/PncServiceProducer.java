@@ -22,6 +22,7 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Disposes;
 import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,11 +34,14 @@ public class PncServiceProducer {
     @ConfigProperty(name = "sbomer.pnc.host")
     String apiUrl;
 
+    @Inject
+    PncServiceConfig config;
+
     @Produces
     @ApplicationScoped
     public PncService producePncService() {
         log.debug("Creating new PNC service bean...");
-        return new PncService(apiUrl);
+        return new PncService(apiUrl, config);
     }
 
     public void close(@Disposes PncService pncService) {
@@ -0,0 +1,415 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.cache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.Build;
+import org.jboss.pnc.dto.BuildConfigurationRevision;
+import org.jboss.pnc.sentinel.ArtifactProjection;
+import org.jboss.pnc.sentinel.PncServiceConfig.CacheConfig;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * A bounded in-memory cache for the PNC data used to generate provenances.
+ * </p>
+ *
+ * <p>
+ * A {@link BuildConfigurationRevision} never changes once created, and neither do the {@link Build} and its artifact
+ * lists once the build is finished, so those entries are kept until evicted by the size limits. Data of builds which
+ * are still running expires after a short time. Eviction is size-based (W-TinyLFU) for builds and revisions and
+ * weight-based, on the number of artifacts, for the artifact lists.
+ * </p>
+ *
+ * <p>
+ * The artifact lists are cached either as full {@link Artifact} DTOs or as {@link ArtifactProjection}s, decoded from
+ * separate PNC responses, so that the projections of a build never require binding its full DTOs.
+ * </p>
+ *
+ * <p>
+ * Entries which could not be found ({@code null}) are never cached.
+ * </p>
+ *
+ * <p>
+ * Optionally, the immutable data is also stored in a {@link PncDiskCache}, consulted before loading anything from PNC,
+ * so that it is not fetched again after a restart.
+ * </p>
+ */
+@Slf4j
+public class PncCache {
+
+    private static final Duration FOREVER = Duration.ofNanos(Long.MAX_VALUE);
+
+    public static final String BUILDS = "builds";
+    public static final String REVISIONS = "revisions";
+    public static final String BUILT_ARTIFACTS = "builtArtifacts";
+    public static final String DEPENDENCIES = "dependencies";
+    public static final String BUILT_ARTIFACT_PROJECTIONS = "builtArtifactProjections";
+    public static final String DEPENDENCY_PROJECTIONS = "dependencyProjections";
+
+    public static final String DISK = "disk";
+
+    private static final JavaType BUILD_TYPE = TypeFactory.defaultInstance().constructType(Build.class);
+
+    private static final JavaType REVISION_TYPE = TypeFactory.defaultInstance()
+            .constructType(BuildConfigurationRevision.class);
+
+    private static final JavaType ARTIFACTS_TYPE = TypeFactory.defaultInstance()
+            .constructCollectionType(List.class, Artifact.class);
+
+    private static final JavaType PROJECTIONS_TYPE = TypeFactory.defaultInstance()
+            .constructCollectionType(List.class, ArtifactProjection.class);
+
+    private final boolean enabled;
+
+    private final Cache<String, Build> builds;
+
+    private final Cache<RevisionKey, BuildConfigurationRevision> revisions;
+
+    private final Cache<String, Listing<Artifact>> builtArtifacts;
+
+    private final Cache<String, Listing<Artifact>> dependencies;
+
+    private final Cache<String, Listing<ArtifactProjection>> builtArtifactProjections;
+
+    private final Cache<String, Listing<ArtifactProjection>> dependencyProjections;
+
+    /**
+     * The persistent cache, {@code null} when disabled.
+     */
+    private final PncDiskCache disk;
+
+    public PncCache(CacheConfig config) {
+        this.enabled = config.enabled();
+        this.disk = config.disk().enabled()
+                ? new PncDiskCache(Path.of(config.disk().directory()), config.disk().maxSize())
+                : null;
+        Duration runningBuildTtl = config.runningBuildTtl();
+
+        builds = Caffeine.newBuilder()
+                .maximumSize(config.maxBuilds())
+                .expireAfter(Expiry.<String, Build> creating((id, build) -> isFinal(build) ? FOREVER : runningBuildTtl))
+                .recordStats()
+                .build();
+
+        revisions = Caffeine.newBuilder().maximumSize(config.maxRevisions()).recordStats().build();
+
+        builtArtifacts = listingCache(config.maxArtifacts(), runningBuildTtl);
+        dependencies = listingCache(config.maxArtifacts(), runningBuildTtl);
+        builtArtifactProjections = listingCache(config.maxArtifacts(), runningBuildTtl);
+        dependencyProjections = listingCache(config.maxArtifacts(), runningBuildTtl);
+    }
+
+    private static <T> Cache<String, Listing<T>> listingCache(long maxArtifacts, Duration runningBuildTtl) {
+        // Artifact lists do not carry the build status, it is recorded along with the list when it is loaded
+        return Caffeine.newBuilder()
+                .maximumWeight(maxArtifacts)
+                .<String, Listing<T>> weigher((buildId, listing) -> Math.max(1, listing.artifacts().size()))
+                .expireAfter(
+                        Expiry.<String, Listing<T>> creating(
+                                (buildId, listing) -> listing.immutable() ? FOREVER : runningBuildTtl))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Build getBuild(String buildId, Function<String, Build> loader) {
+        Function<String, Build> load = persisted(BUILDS, buildId, BUILD_TYPE, loader, PncCache::isFinal);
+        return enabled ? builds.get(buildId, load) : load.apply(buildId);
+    }
+
+    public BuildConfigurationRevision getBuildConfigRevision(
+            String buildConfigId,
+            Integer buildConfigRevision,
+            Function<RevisionKey, BuildConfigurationRevision> loader) {
+        RevisionKey key = new RevisionKey(buildConfigId, buildConfigRevision);
+        Function<RevisionKey, BuildConfigurationRevision> load = persisted(
+                REVISIONS,
+                buildConfigId + ':' + buildConfigRevision,
+                REVISION_TYPE,
+                loader,
+                Objects::nonNull);
+        return enabled ? revisions.get(key, load) : load.apply(key);
+    }
+
+    /**
+     * Get the built artifacts of a build, loading them on a cache miss.
+     *
+     * @param buildFinished tells whether the build is finished, evaluated on a cache miss before calling the
+     *        {@code loader}, so that a list loaded while the build was still running is never kept forever
+     */
+    public Collection<Artifact> getBuiltArtifacts(
+            String buildId,
+            BooleanSupplier buildFinished,
+            Function<String, Collection<Artifact>> loader) {
+        return getListing(builtArtifacts, BUILT_ARTIFACTS, ARTIFACTS_TYPE, buildId, buildFinished, loader);
+    }
+
+    /**
+     * Get the dependencies of a build, loading them on a cache miss.
+     *
+     * @param buildFinished tells whether the build is finished, evaluated on a cache miss before calling the
+     *        {@code loader}, so that a list loaded while the build was still running is never kept forever
+     */
+    public Collection<Artifact> getDependencies(
+            String buildId,
+            BooleanSupplier buildFinished,
+            Function<String, Collection<Artifact>> loader) {
+        return getListing(dependencies, DEPENDENCIES, ARTIFACTS_TYPE, buildId, buildFinished, loader);
+    }
+
+    /**
+     * Get the projections of the built artifacts of a build, loading them on a cache miss.
+     *
+     * @param buildFinished tells whether the build is finished, evaluated on a cache miss before calling the
+     *        {@code loader}, so that a list loaded while the build was still running is never kept forever
+     */
+    public Collection<ArtifactProjection> getBuiltArtifactProjections(
+            String buildId,
+            BooleanSupplier buildFinished,
+            Function<String, Collection<ArtifactProjection>> loader) {
+        return getListing(
+                builtArtifactProjections,
+                BUILT_ARTIFACT_PROJECTIONS,
+                PROJECTIONS_TYPE,
+                buildId,
+                buildFinished,
+                loader);
+    }
+
+    /**
+     * Get the projections of the dependencies of a build, loading them on a cache miss.
+     *
+     * @param buildFinished tells whether the build is finished, evaluated on a cache miss before calling the
+     *        {@code loader}, so that a list loaded while the build was still running is never kept forever
+     */
+    public Collection<ArtifactProjection> getDependencyProjections(
+            String buildId,
+            BooleanSupplier buildFinished,
+            Function<String, Collection<ArtifactProjection>> loader) {
+        return getListing(
+                dependencyProjections,
+                DEPENDENCY_PROJECTIONS,
+                PROJECTIONS_TYPE,
+                buildId,
+                buildFinished,
+                loader);
+    }
+
+    /**
+     * @return the cached built artifacts of the build, or {@code null} when not cached
+     */
+    public Collection<Artifact> getBuiltArtifactsIfPresent(String buildId) {
+        return getIfPresent(builtArtifacts, BUILT_ARTIFACTS, ARTIFACTS_TYPE, buildId);
+    }
+
+    /**
+     * @return the cached dependencies of the build, or {@code null} when not cached
+     */
+    public Collection<Artifact> getDependenciesIfPresent(String buildId) {
+        return getIfPresent(dependencies, DEPENDENCIES, ARTIFACTS_TYPE, buildId);
+    }
+
+    /**
+     * @return the cached projections of the built artifacts of the build, or {@code null} when not cached
+     */
+    public Collection<ArtifactProjection> getBuiltArtifactProjectionsIfPresent(String buildId) {
+        return getIfPresent(builtArtifactProjections, BUILT_ARTIFACT_PROJECTIONS, PROJECTIONS_TYPE, buildId);
+    }
+
+    /**
+     * @return the cached projections of the dependencies of the build, or {@code null} when not cached
+     */
+    public Collection<ArtifactProjection> getDependencyProjectionsIfPresent(String buildId) {
+        return getIfPresent(dependencyProjections, DEPENDENCY_PROJECTIONS, PROJECTIONS_TYPE, buildId);
+    }
+
+    /**
+     * Drop everything cached about the build identified by the particular {@code buildId}.
+     */
+    public void invalidate(String buildId) {
+        log.debug("Invalidating cached data of build with id '{}'", buildId);
+        builds.invalidate(buildId);
+        builtArtifacts.invalidate(buildId);
+        dependencies.invalidate(buildId);
+        builtArtifactProjections.invalidate(buildId);
+        dependencyProjections.invalidate(buildId);
+
+        if (disk != null) {
+            disk.remove(diskKey(BUILDS, buildId));
+            disk.remove(diskKey(BUILT_ARTIFACTS, buildId));
+            disk.remove(diskKey(DEPENDENCIES, buildId));
+            disk.remove(diskKey(BUILT_ARTIFACT_PROJECTIONS, buildId));
+            disk.remove(diskKey(DEPENDENCY_PROJECTIONS, buildId));
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters of every cache, keyed by cache name.
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put(BUILDS, builds.stats());
+        stats.put(REVISIONS, revisions.stats());
+        stats.put(BUILT_ARTIFACTS, builtArtifacts.stats());
+        stats.put(DEPENDENCIES, dependencies.stats());
+        stats.put(BUILT_ARTIFACT_PROJECTIONS, builtArtifactProjections.stats());
+        stats.put(DEPENDENCY_PROJECTIONS, dependencyProjections.stats());
+        if (disk != null) {
+            stats.put(DISK, disk.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Release the files of the persistent cache.
+     */
+    public void close() {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    /**
+     * Look up the persistent cache before calling the {@code loader}, storing its result when {@code immutable}.
+     */
+    private <K, V> Function<K, V> persisted(
+            String cacheName,
+            String id,
+            JavaType type,
+            Function<K, V> loader,
+            Predicate<V> immutable) {
+        if (disk == null) {
+            return loader;
+        }
+
+        String key = diskKey(cacheName, id);
+        return k -> {
+            V value = disk.get(key, type);
+            if (value == null) {
+                value = loader.apply(k);
+                if (immutable.test(value)) {
+                    disk.put(key, value);
+                }
+            }
+            return value;
+        };
+    }
+
+    private <T> Collection<T> getListing(
+            Cache<String, Listing<T>> cache,
+            String cacheName,
+            JavaType type,
+            String buildId,
+            BooleanSupplier buildFinished,
+            Function<String, Collection<T>> loader) {
+        if (!enabled && disk == null) {
+            return loader.apply(buildId);
+        }
+
+        Function<String, Listing<T>> load = id -> {
+            Listing<T> stored = getStored(cacheName, type, id);
+            if (stored != null) {
+                return stored;
+            }
+
+            boolean finished = buildFinished.getAsBoolean();
+            Collection<T> artifacts = loader.apply(id);
+            if (artifacts == null) {
+                return null;
+            }
+            if (disk != null && finished) {
+                disk.put(diskKey(cacheName, id), artifacts);
+            }
+            return new Listing<>(Collections.unmodifiableCollection(artifacts), finished);
+        };
+
+        Listing<T> listing = enabled ? cache.get(buildId, load) : load.apply(buildId);
+        return listing == null ? null : listing.artifacts();
+    }
+
+    private <T> Collection<T> getIfPresent(
+            Cache<String, Listing<T>> cache,
+            String cacheName,
+            JavaType type,
+            String buildId) {
+        Listing<T> listing = enabled ? cache.getIfPresent(buildId) : null;
+
+        if (listing == null) {
+            listing = getStored(cacheName, type, buildId);
+            if (listing != null && enabled) {
+                cache.put(buildId, listing);
+            }
+        }
+        return listing == null ? null : listing.artifacts();
+    }
+
+    /**
+     * Only the lists of finished builds are persisted, so whatever is found on disk is immutable.
+     */
+    private <T> Listing<T> getStored(String cacheName, JavaType type, String buildId) {
+        if (disk == null) {
+            return null;
+        }
+        Collection<T> stored = disk.get(diskKey(cacheName, buildId), type);
+        return stored == null ? null : new Listing<>(Collections.unmodifiableCollection(stored), true);
+    }
+
+    private static String diskKey(String cacheName, String id) {
+        return cacheName + ':' + id;
+    }
+
+    private static boolean isFinal(Build build) {
+        return build != null && build.getStatus() != null && build.getStatus().isFinal();
+    }
+
+    /**
+     * Identifies a {@link BuildConfigurationRevision}.
+     */
+    public record RevisionKey(String id, Integer rev) {
+    }
+
+    /**
+     * A read-only artifact list, shared between callers, and whether it can no longer change.
+     */
+    private record Listing<T>(Collection<T> artifacts, boolean immutable) {
+    }
+}
@@ -0,0 +1,772 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.cache;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * A persistent key-value cache of PNC data, kept on the local disk so that it survives restarts.
+ * </p>
+ *
+ * <p>
+ * Values are serialized as JSON and appended, together with their key and a checksum, to a data file. A memory-mapped
+ * index file maps the hash of every key to the position of its latest record in the data file using open addressing.
+ * Both files are opened lazily, on first access. When the index is missing or does not match the data file, e.g. after
+ * a crash, it is rebuilt by scanning the data file, which is truncated at the first corrupted record.
+ * </p>
+ *
+ * <p>
+ * Overwritten and removed records are reclaimed by compaction once the data file grows above the configured maximum
+ * size: the live records are copied to a new data file, dropping the oldest ones if needed to fill only three quarters
+ * of the maximum size.
+ * </p>
+ *
+ * <p>
+ * Failures to read or write the files are logged and handled as cache misses.
+ * </p>
+ */
+@Slf4j
+public class PncDiskCache implements Closeable {
+
+    static final String DATA_FILE = "pnc-cache.dat";
+
+    static final String INDEX_FILE = "pnc-cache.idx";
+
+    private static final int MAGIC = 0x504E4343;
+
+    private static final int VERSION = 1;
+
+    // magic, version, generation
+    private static final int DATA_HEADER_SIZE = 16;
+
+    // magic, version, capacity, size, used, padding, generation, data length, live bytes
+    private static final int INDEX_HEADER_SIZE = 48;
+
+    // key hash, record offset, record length, padding
+    private static final int SLOT_SIZE = 24;
+
+    // body length, body checksum
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private static final double COMPACTED_FILL = 0.75;
+
+    // Offset of an empty slot, records are never stored at the beginning of the data file
+    private static final long EMPTY = 0L;
+
+    private static final long REMOVED = -1L;
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperProvider.json();
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile boolean opened;
+
+    private boolean failed;
+
+    private boolean closed;
+
+    private FileChannel data;
+
+    private MappedByteBuffer index;
+
+    private int capacity;
+
+    // Number of live keys
+    private int size;
+
+    // Number of slots either live or removed
+    private int used;
+
+    private long generation;
+
+    private long dataLength;
+
+    private long liveBytes;
+
+    public PncDiskCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the value stored for the {@code key}, or {@code null} when not stored
+     */
+    public <T> T get(String key, JavaType type) {
+        byte[] value = read(key);
+
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+
+        try {
+            T result = OBJECT_MAPPER.readValue(value, type);
+            hits.increment();
+            return result;
+        } catch (IOException ex) {
+            // Most likely written by a version with different DTOs
+            log.warn("Dropping unreadable entry '{}' of the PNC disk cache", key, ex);
+            remove(key);
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * @return whether a value is stored for the {@code key}
+     */
+    public boolean contains(String key) {
+        if (!ensureOpen()) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            return !closed && probe(key) >= 0;
+        } catch (IOException ex) {
+            log.warn("Failed to read the PNC disk cache", ex);
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Store the {@code value} for the {@code key}, replacing any previous one.
+     */
+    public void put(String key, Object value) {
+        byte[] json;
+        try {
+            json = OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            log.warn("Failed to serialize entry '{}' of the PNC disk cache", key, ex);
+            return;
+        }
+
+        write(key, PUT, json);
+    }
+
+    /**
+     * Remove the value stored for the {@code key}, if any.
+     */
+    public void remove(String key) {
+        if (contains(key)) {
+            write(key, REMOVE, new byte[0]);
+        }
+    }
+
+    /**
+     * @return the number of stored values
+     */
+    public int size() {
+        if (!ensureOpen()) {
+            return 0;
+        }
+
+        lock.readLock().lock();
+        try {
+            return closed ? 0 : size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the size, in bytes, of the data file
+     */
+    public long dataSize() {
+        if (!ensureOpen()) {
+            return 0;
+        }
+
+        lock.readLock().lock();
+        try {
+            return closed ? 0 : dataLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hit and miss counters, evictions are the values dropped by compactions to keep within the maximum size.
+     */
+    public CacheStats getStats() {
+        return CacheStats.of(hits.sum(), misses.sum(), 0, 0, 0, evictions.sum(), 0);
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (opened && !failed) {
+                index.force();
+                data.close();
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to close the PNC disk cache", ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private byte[] read(String key) {
+        if (!ensureOpen()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return null;
+            }
+
+            int slot = probe(key);
+            if (slot < 0) {
+                return null;
+            }
+
+            ByteBuffer record = readRecord(slotOffset(slot), slotLength(slot));
+            int keyLength = record.getShort(RECORD_HEADER_SIZE + 1) & 0xFFFF;
+            int valueOffset = RECORD_HEADER_SIZE + 3 + keyLength;
+            byte[] value = new byte[record.limit() - valueOffset];
+            record.get(valueOffset, value);
+            return value;
+        } catch (IOException ex) {
+            log.warn("Failed to read entry '{}' of the PNC disk cache", key, ex);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(String key, byte type, byte[] value) {
+        if (!ensureOpen()) {
+            return;
+        }
+
+        byte[] keyBytes = encode(key);
+        long hash = hash(keyBytes);
+
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            ByteBuffer record = encodeRecord(type, keyBytes, value);
+            int length = record.remaining();
+            long offset = dataLength;
+            writeFully(data, record, offset);
+            dataLength += length;
+
+            apply(type, hash, keyBytes, offset, length);
+            writeIndexHeader();
+
+            if (used > capacity * MAX_LOAD_FACTOR) {
+                resizeIndex(capacity * 2);
+            }
+            if (dataLength > maxSize) {
+                compact();
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to write entry '{}' of the PNC disk cache", key, ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean ensureOpen() {
+        if (!opened) {
+            synchronized (this) {
+                if (!opened) {
+                    try {
+                        open();
+                    } catch (IOException ex) {
+                        log.warn("Failed to open the PNC disk cache in '{}', it is disabled", directory, ex);
+                        failed = true;
+                    }
+                    opened = true;
+                }
+            }
+        }
+        return !failed;
+    }
+
+    private void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+
+        data = FileChannel.open(
+                directory.resolve(DATA_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE);
+        if (data.size() < DATA_HEADER_SIZE || data.read(header, 0) != DATA_HEADER_SIZE || header.getInt(0) != MAGIC
+                || header.getInt(4) != VERSION) {
+            log.info("Initializing the PNC disk cache in '{}'", directory);
+            data.truncate(0);
+            generation = System.currentTimeMillis();
+            writeFully(data, dataHeader(generation), 0);
+        } else {
+            generation = header.getLong(8);
+        }
+        dataLength = data.size();
+
+        if (!loadIndex()) {
+            log.info("Rebuilding the index of the PNC disk cache in '{}'", directory);
+            rebuildIndex();
+        }
+
+        log.info(
+                "Opened the PNC disk cache in '{}' with {} entries in {} ms",
+                directory,
+                size,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private boolean loadIndex() throws IOException {
+        Path path = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(path) || Files.size(path) < INDEX_HEADER_SIZE) {
+            return false;
+        }
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+
+        int storedCapacity = mapped.getInt(8);
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || Integer.bitCount(storedCapacity) != 1
+                || mapped.capacity() != INDEX_HEADER_SIZE + (long) storedCapacity * SLOT_SIZE
+                || mapped.getLong(24) != generation || mapped.getLong(32) != dataLength) {
+            return false;
+        }
+
+        index = mapped;
+        capacity = storedCapacity;
+        size = mapped.getInt(12);
+        used = mapped.getInt(16);
+        liveBytes = mapped.getLong(40);
+        return true;
+    }
+
+    /**
+     * Replay all the records of the data file, truncating it at the first incomplete or corrupted one.
+     */
+    private void rebuildIndex() throws IOException {
+        createIndex(MIN_CAPACITY);
+
+        long offset = DATA_HEADER_SIZE;
+        // Not closed, that would close the data file channel too
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(data.position(offset)), 1 << 16));
+        while (offset < dataLength) {
+            byte[] body = readBody(in, dataLength - offset);
+            if (body == null) {
+                log.warn("Truncating the PNC disk cache data file at {} bytes, found a corrupted record", offset);
+                data.truncate(offset);
+                dataLength = offset;
+                break;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte type = buffer.get();
+            byte[] keyBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(keyBytes);
+            int length = RECORD_HEADER_SIZE + body.length;
+
+            apply(type, hash(keyBytes), keyBytes, offset, length);
+            offset += length;
+
+            if (used > capacity * MAX_LOAD_FACTOR) {
+                resizeIndex(capacity * 2);
+            }
+        }
+
+        writeIndexHeader();
+    }
+
+    /**
+     * @return the body of the next record, or {@code null} when it is incomplete or corrupted
+     */
+    private static byte[] readBody(DataInputStream in, long remaining) throws IOException {
+        try {
+            if (remaining < RECORD_HEADER_SIZE) {
+                return null;
+            }
+
+            int bodyLength = in.readInt();
+            int checksum = in.readInt();
+            if (bodyLength < 3 || bodyLength > remaining - RECORD_HEADER_SIZE) {
+                return null;
+            }
+
+            byte[] body = new byte[bodyLength];
+            in.readFully(body);
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            return (int) crc.getValue() == checksum ? body : null;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Copy the live records, oldest first, to a new data file.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        long previousLength = dataLength;
+
+        List<long[]> live = new ArrayList<>(size);
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = slotOffset(slot);
+            if (offset != EMPTY && offset != REMOVED) {
+                live.add(new long[] { slotHash(slot), offset, slotLength(slot) });
+            }
+        }
+        live.sort(Comparator.comparingLong(entry -> entry[1]));
+
+        long toDrop = Math.max(0, liveBytes - (long) (maxSize * COMPACTED_FILL));
+        long newGeneration = generation + 1;
+        Path compacted = directory.resolve(DATA_FILE + ".compact");
+        List<long[]> kept = new ArrayList<>(live.size());
+
+        try (FileChannel out = FileChannel.open(
+                compacted,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(out, dataHeader(newGeneration), 0);
+
+            long position = DATA_HEADER_SIZE;
+            for (long[] entry : live) {
+                if (toDrop > 0) {
+                    toDrop -= entry[2];
+                    evictions.increment();
+                    continue;
+                }
+                transferFully(entry[1], entry[2], out, position);
+                kept.add(new long[] { entry[0], position, entry[2] });
+                position += entry[2];
+            }
+        }
+
+        // Replace the file before closing the current one: should the move fail, the cache keeps working on it
+        FileChannel compactedData;
+        try {
+            Files.move(
+                    compacted,
+                    directory.resolve(DATA_FILE),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            compactedData = FileChannel
+                    .open(directory.resolve(DATA_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            Files.deleteIfExists(compacted);
+            throw ex;
+        }
+        data.close();
+        data = compactedData;
+        generation = newGeneration;
+        dataLength = data.size();
+
+        int newCapacity = MIN_CAPACITY;
+        while (kept.size() > newCapacity * MAX_LOAD_FACTOR / 2) {
+            newCapacity *= 2;
+        }
+        createIndex(newCapacity);
+        for (long[] entry : kept) {
+            insert(entry[0], entry[1], (int) entry[2]);
+            liveBytes += entry[2];
+        }
+        size = kept.size();
+        used = kept.size();
+        writeIndexHeader();
+
+        log.info(
+                "Compacted the PNC disk cache from {} to {} bytes, keeping {} of {} entries, in {} ms",
+                previousLength,
+                dataLength,
+                kept.size(),
+                live.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Rehash the live entries into an index with the new {@code newCapacity}, dropping the removed ones.
+     */
+    private void resizeIndex(int newCapacity) throws IOException {
+        List<long[]> live = new ArrayList<>(size);
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = slotOffset(slot);
+            if (offset != EMPTY && offset != REMOVED) {
+                live.add(new long[] { slotHash(slot), offset, slotLength(slot) });
+            }
+        }
+
+        long previousLiveBytes = liveBytes;
+        createIndex(newCapacity);
+        for (long[] entry : live) {
+            insert(entry[0], entry[1], (int) entry[2]);
+        }
+        size = live.size();
+        used = live.size();
+        liveBytes = previousLiveBytes;
+        writeIndexHeader();
+    }
+
+    /**
+     * Map a new empty index file, replacing the current one once fully written.
+     */
+    private void createIndex(int newCapacity) throws IOException {
+        Path path = directory.resolve(INDEX_FILE + ".new");
+        Files.deleteIfExists(path);
+
+        try (FileChannel channel = FileChannel
+                .open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            index = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+        }
+        // The mapping stays valid once the file is renamed
+        Files.move(path, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+
+        capacity = newCapacity;
+        size = 0;
+        used = 0;
+        liveBytes = 0;
+    }
+
+    private void writeIndexHeader() {
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, capacity);
+        index.putInt(12, size);
+        index.putInt(16, used);
+        index.putLong(24, generation);
+        index.putLong(32, dataLength);
+        index.putLong(40, liveBytes);
+    }
+
+    /**
+     * Point the index to the record just written at {@code offset}.
+     */
+    private void apply(byte type, long hash, byte[] keyBytes, long offset, int length) throws IOException {
+        int slot = probe(hash, keyBytes);
+
+        if (slot >= 0) {
+            liveBytes -= slotLength(slot);
+            if (type == PUT) {
+                setSlot(slot, hash, offset, length);
+            } else {
+                setSlot(slot, hash, REMOVED, 0);
+                size--;
+            }
+        } else if (type == PUT) {
+            setSlot(-slot - 1, hash, offset, length);
+            size++;
+            used++;
+        }
+
+        if (type == PUT) {
+            liveBytes += length;
+        }
+    }
+
+    /**
+     * @return the slot holding the {@code key}, or {@code -(slot + 1)} of the empty slot where it can be inserted
+     */
+    private int probe(long hash, byte[] keyBytes) throws IOException {
+        int mask = capacity - 1;
+        int slot = spread(hash) & mask;
+
+        while (true) {
+            long offset = slotOffset(slot);
+            if (offset == EMPTY) {
+                return -slot - 1;
+            }
+            if (offset != REMOVED && slotHash(slot) == hash && keyMatches(offset, keyBytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int probe(String key) throws IOException {
+        byte[] keyBytes = encode(key);
+        return probe(hash(keyBytes), keyBytes);
+    }
+
+    private void insert(long hash, long offset, int length) {
+        int mask = capacity - 1;
+        int slot = spread(hash) & mask;
+        while (slotOffset(slot) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        setSlot(slot, hash, offset, length);
+    }
+
+    private boolean keyMatches(long offset, byte[] keyBytes) throws IOException {
+        ByteBuffer key = ByteBuffer.allocate(3 + keyBytes.length);
+        readFully(data, key, offset + RECORD_HEADER_SIZE);
+        key.flip();
+        return (key.getShort(1) & 0xFFFF) == keyBytes.length
+                && key.slice(3, keyBytes.length).equals(ByteBuffer.wrap(keyBytes));
+    }
+
+    private ByteBuffer readRecord(long offset, int length) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(data, record, offset);
+        return record.flip();
+    }
+
+    private long slotHash(int slot) {
+        return index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8);
+    }
+
+    private int slotLength(int slot) {
+        return index.getInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 16);
+    }
+
+    private void setSlot(int slot, long hash, long offset, int length) {
+        int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+        index.putLong(position, hash);
+        index.putLong(position + 8, offset);
+        index.putInt(position + 16, length);
+    }
+
+    private void transferFully(long offset, long length, FileChannel target, long position) throws IOException {
+        long transferred = 0;
+        while (transferred < length) {
+            transferred += data
+                    .transferTo(offset + transferred, length - transferred, target.position(position + transferred));
+        }
+    }
+
+    private static ByteBuffer dataHeader(long generation) {
+        return ByteBuffer.allocate(DATA_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(generation).flip();
+    }
+
+    private static ByteBuffer encodeRecord(byte type, byte[] keyBytes, byte[] value) {
+        int bodyLength = 3 + keyBytes.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyLength);
+        record.putInt(bodyLength).putInt(0).put(type).putShort((short) keyBytes.length).put(keyBytes).put(value);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of the PNC disk cache data file");
+            }
+            position += read;
+        }
+    }
+
+    private static byte[] encode(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key of the PNC disk cache is too long: " + key);
+        }
+        return keyBytes;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the key.
+     */
+    private static long hash(byte[] keyBytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : keyBytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int spread(long hash) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
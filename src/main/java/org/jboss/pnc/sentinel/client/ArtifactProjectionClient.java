@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.rest.api.parameters.PageParameters;
+import org.jboss.pnc.sentinel.ArtifactProjection;
+import org.jboss.pnc.sentinel.errors.ClientException;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Requests the PNC artifact listings of a build and decodes them with the {@link ArtifactProjectionParser}, instead of
+ * binding every field of the full DTOs.
+ */
+public class ArtifactProjectionClient {
+
+    private final WebTarget target;
+
+    ArtifactProjectionClient(WebTarget target) {
+        this.target = target;
+    }
+
+    public Page<ArtifactProjection> getBuiltArtifacts(String buildId, PageParameters pageParameters) {
+        return getPage(buildId, "built", pageParameters);
+    }
+
+    public Page<ArtifactProjection> getDependencyArtifacts(String buildId, PageParameters pageParameters) {
+        return getPage(buildId, "dependencies", pageParameters);
+    }
+
+    private Page<ArtifactProjection> getPage(String buildId, String listing, PageParameters pageParameters) {
+        Response response = target.path("builds")
+                .path(buildId)
+                .path("artifacts")
+                .path(listing)
+                .queryParam("pageIndex", pageParameters.getPageIndex())
+                .queryParam("pageSize", pageParameters.getPageSize())
+                .request(MediaType.APPLICATION_JSON)
+                .get();
+
+        try (response) {
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                throw new WebApplicationException(response);
+            }
+            try (InputStream json = response.readEntity(InputStream.class)) {
+                return ArtifactProjectionParser.parsePage(json);
+            }
+        } catch (IOException ex) {
+            throw new ClientException("Artifacts of build '{}' could not be decoded", buildId, ex);
+        }
+    }
+}
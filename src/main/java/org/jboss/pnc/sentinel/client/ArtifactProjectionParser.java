@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.sentinel.ArtifactProjection;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * <p>
+ * Decodes PNC artifact listings straight into {@link ArtifactProjection}s with the Jackson streaming API.
+ * </p>
+ *
+ * <p>
+ * Only the projected fields are read: all the other fields of an artifact, including the nested build and target
+ * repository objects, are skipped token by token without creating any object.
+ * </p>
+ */
+public class ArtifactProjectionParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ArtifactProjectionParser() {
+        // This is a utility class
+    }
+
+    /**
+     * Decode a page of artifacts, as returned by the PNC artifact listing endpoints.
+     */
+    public static Page<ArtifactProjection> parsePage(InputStream json) throws IOException {
+        Page<ArtifactProjection> page = new Page<>();
+        page.setContent(List.of());
+
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "pageIndex" -> page.setPageIndex(parser.getValueAsInt());
+                    case "pageSize" -> page.setPageSize(parser.getValueAsInt());
+                    case "totalPages" -> page.setTotalPages(parser.getValueAsInt());
+                    case "totalHits" -> page.setTotalHits(parser.getValueAsInt());
+                    case "content" ->
+                        page.setContent(value == JsonToken.VALUE_NULL ? List.of() : readArtifacts(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Decode a JSON array of artifacts.
+     */
+    public static List<ArtifactProjection> parseArtifacts(InputStream json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return readArtifacts(parser);
+        }
+    }
+
+    private static List<ArtifactProjection> readArtifacts(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+
+        List<ArtifactProjection> artifacts = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            expect(parser, token, JsonToken.START_OBJECT);
+            artifacts.add(readArtifact(parser));
+        }
+        return artifacts;
+    }
+
+    private static ArtifactProjection readArtifact(JsonParser parser) throws IOException {
+        String filename = null;
+        String sha256 = null;
+        String identifier = null;
+        String purl = null;
+        String publicUrl = null;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "filename" -> filename = parser.getValueAsString();
+                case "sha256" -> sha256 = parser.getValueAsString();
+                case "identifier" -> identifier = parser.getValueAsString();
+                case "purl" -> purl = parser.getValueAsString();
+                case "publicUrl" -> publicUrl = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        return new ArtifactProjection(filename, sha256, identifier, purl, publicUrl);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.StandardHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.jboss.pnc.client.BasicAuthentication;
+import org.jboss.pnc.client.BearerAuthentication;
+import org.jboss.pnc.client.BuildClient;
+import org.jboss.pnc.client.BuildConfigurationClient;
+import org.jboss.pnc.client.Configuration;
+import org.jboss.pnc.client.MdcToHeadersFilter;
+import org.jboss.pnc.client.RequestLoggingFilter;
+import org.jboss.pnc.client.ResteasyJackson2ProviderWithDateISO8601;
+import org.jboss.pnc.rest.api.endpoints.BuildEndpoint;
+import org.jboss.pnc.sentinel.PncServiceConfig.HttpClientConfig;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+
+import jakarta.ws.rs.client.ClientBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Creates PNC REST clients which all share a single, tunable HTTP connection pool.
+ * </p>
+ *
+ * <p>
+ * Every PNC client otherwise builds its own transport, limited to two connections to the PNC host and without response
+ * compression. Clients created by this factory reuse the warm keep-alive connections of the shared pool instead.
+ * </p>
+ */
+@Slf4j
+public class PncClientFactory implements Closeable {
+
+    private static final String BASE_REST_PATH = "/pnc-rest/v2";
+
+    private final Configuration configuration;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final ResteasyClient client;
+
+    private final ResteasyWebTarget target;
+
+    public PncClientFactory(Configuration configuration, HttpClientConfig config) {
+        this.configuration = configuration;
+
+        connectionManager = new PoolingHttpClientConnectionManager(
+                config.connectionTtl().toMillis(),
+                TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(config.maxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity((int) config.validateAfterInactivity().toMillis());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) config.connectTimeout().toMillis())
+                .setSocketTimeout((int) config.readTimeout().toMillis())
+                .setConnectionRequestTimeout((int) config.connectionRequestTimeout().toMillis())
+                .build();
+
+        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setRetryHandler(new StandardHttpRequestRetryHandler())
+                .evictExpiredConnections()
+                .evictIdleConnections(config.idleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+        // Content compression is enabled by default in the builder: "Accept-Encoding: gzip,deflate" is sent and the
+        // responses are transparently decompressed
+        if (!config.compression()) {
+            httpClientBuilder.disableContentCompression();
+        }
+        httpClient = httpClientBuilder.build();
+
+        client = ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+                .httpEngine(new ApacheHttpClient43Engine(httpClient, true))
+                .build();
+        client.register(ResteasyJackson2ProviderWithDateISO8601.class);
+        client.register(new MdcToHeadersFilter(configuration.getMdcToHeadersMappings()));
+        client.register(RequestLoggingFilter.class);
+
+        target = authenticate(newTarget(), configuration, bearerAuthentication(configuration));
+
+        log.debug(
+                "Created the PNC HTTP connection pool: max connections {}, max per route {}, compression {}",
+                config.maxConnections(),
+                config.maxConnectionsPerRoute(),
+                config.compression());
+    }
+
+    /**
+     * @return a {@link BuildClient} sending its requests through the shared connection pool
+     */
+    public BuildClient createBuildClient() {
+        return new PooledBuildClient(configuration, newTarget());
+    }
+
+    /**
+     * @return the raw {@link BuildEndpoint} proxy, sending its requests through the shared connection pool
+     */
+    public BuildEndpoint createBuildEndpoint() {
+        return target.proxy(BuildEndpoint.class);
+    }
+
+    /**
+     * @return a {@link BuildConfigurationClient} sending its requests through the shared connection pool
+     */
+    public BuildConfigurationClient createBuildConfigurationClient() {
+        return new PooledBuildConfigurationClient(configuration, newTarget());
+    }
+
+    /**
+     * @return an {@link ArtifactProjectionClient} sending its requests through the shared connection pool
+     */
+    public ArtifactProjectionClient createArtifactProjectionClient() {
+        return new ArtifactProjectionClient(target);
+    }
+
+    /**
+     * @return the statistics of the shared connection pool (leased, available and pending connections)
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() {
+        log.debug("Closing the PNC HTTP connection pool: {}", connectionManager.getTotalStats());
+        client.close();
+        try {
+            httpClient.close();
+        } catch (IOException ex) {
+            log.warn("Unable to close the PNC HTTP client", ex);
+        }
+    }
+
+    /**
+     * @return a target of the PNC REST API on the shared connection pool, with its own set of filters
+     */
+    private ResteasyWebTarget newTarget() {
+        return client.target(baseUrl(configuration));
+    }
+
+    /**
+     * Register the authentication filter the PNC clients would register for the {@code configuration}: basic
+     * authentication first, then the bearer token.
+     *
+     * @param bearerAuthentication the bearer token filter, kept by the PNC clients to refresh the token, or
+     *        {@code null}
+     */
+    static ResteasyWebTarget authenticate(
+            ResteasyWebTarget target,
+            Configuration configuration,
+            BearerAuthentication bearerAuthentication) {
+        Configuration.BasicAuth basicAuth = configuration.getBasicAuth();
+        if (basicAuth != null) {
+            target.register(new BasicAuthentication(basicAuth.getUsername(), basicAuth.getPassword()));
+        } else if (bearerAuthentication != null) {
+            target.register(bearerAuthentication);
+        }
+        return target;
+    }
+
+    private static BearerAuthentication bearerAuthentication(Configuration configuration) {
+        if (configuration.getBearerTokenSupplier() != null) {
+            return new BearerAuthentication(configuration.getBearerTokenSupplier());
+        }
+        String token = configuration.getBearerToken();
+        return token == null || token.isEmpty() ? null : new BearerAuthentication(token);
+    }
+
+    private static String baseUrl(Configuration configuration) {
+        String port = configuration.getPort() == null ? "" : ":" + configuration.getPort();
+        return configuration.getProtocol() + "://" + configuration.getHost() + port + BASE_REST_PATH;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.client;
+
+import org.jboss.pnc.client.BuildConfigurationClient;
+import org.jboss.pnc.client.Configuration;
+import org.jboss.pnc.rest.api.endpoints.BuildConfigurationEndpoint;
+import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+
+/**
+ * A {@link BuildConfigurationClient} whose requests go through the endpoint proxy of the shared
+ * {@link PncClientFactory} pool instead of its own transport. The transport created by the base class is closed right
+ * away, and its authentication filter registered on the pooled target instead.
+ */
+class PooledBuildConfigurationClient extends BuildConfigurationClient {
+
+    PooledBuildConfigurationClient(Configuration configuration, ResteasyWebTarget target) {
+        super(configuration);
+        client.close();
+        this.proxy = PncClientFactory.authenticate(target, configuration, bearerAuthentication)
+                .proxy(BuildConfigurationEndpoint.class);
+    }
+}
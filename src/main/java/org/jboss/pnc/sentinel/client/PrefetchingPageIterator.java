@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.client;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.sentinel.errors.ClientException;
+
+/**
+ * <p>
+ * Iterates over all the items of a paged PNC listing, requesting the next pages concurrently, ahead of the consumer.
+ * </p>
+ *
+ * <p>
+ * The first page is requested on the calling thread, on first use, to learn the number of pages. Up to {@code window}
+ * of the following pages are then kept in flight on the {@code executor}. The items are returned in page order.
+ * </p>
+ *
+ * <p>
+ * An interrupted consumer stops the iteration with a {@link ClientException} before the next page, cancelling the
+ * pending requests.
+ * </p>
+ *
+ * @param <T> the type of the items
+ */
+public class PrefetchingPageIterator<T> implements Iterator<T>, Closeable {
+
+    private final IntFunction<Page<T>> pageFetcher;
+
+    private final int window;
+
+    private final Executor executor;
+
+    private final Deque<CompletableFuture<Page<T>>> pending = new ArrayDeque<>();
+
+    private Iterator<T> current;
+
+    private int totalPages = -1;
+
+    private int nextPageIndex;
+
+    /**
+     * @param pageFetcher requests the page with the given index
+     * @param window the maximum number of pages requested ahead of the consumer
+     * @param executor runs the page requests
+     */
+    public PrefetchingPageIterator(IntFunction<Page<T>> pageFetcher, int window, Executor executor) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Prefetch window must be positive, got " + window);
+        }
+        this.pageFetcher = pageFetcher;
+        this.window = window;
+        this.executor = executor;
+    }
+
+    /**
+     * @return a sequential stream of the items, which cancels the pending requests when closed
+     */
+    public Stream<T> stream() {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (totalPages < 0) {
+            Page<T> first = pageFetcher.apply(0);
+            totalPages = first.getTotalPages();
+            nextPageIndex = 1;
+            current = content(first);
+            prefetch();
+        }
+
+        while (!current.hasNext()) {
+            CompletableFuture<Page<T>> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                next.cancel(false);
+                throw interrupted();
+            }
+            current = content(await(next));
+            prefetch();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancel the requests of the pages not consumed yet.
+     */
+    @Override
+    public void close() {
+        pending.forEach(page -> page.cancel(false));
+        pending.clear();
+        totalPages = Math.max(totalPages, 0);
+        nextPageIndex = totalPages;
+        current = Collections.emptyIterator();
+    }
+
+    private void prefetch() {
+        while (pending.size() < window && nextPageIndex < totalPages) {
+            int pageIndex = nextPageIndex++;
+            pending.add(CompletableFuture.supplyAsync(() -> pageFetcher.apply(pageIndex), executor));
+        }
+    }
+
+    private static <T> Iterator<T> content(Page<T> page) {
+        return page.getContent() == null ? Collections.emptyIterator() : page.getContent().iterator();
+    }
+
+    private ClientException interrupted() {
+        close();
+        return new ClientException("Interrupted while fetching the pages of a PNC listing");
+    }
+
+    private Page<T> await(CompletableFuture<Page<T>> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException ex) {
+            page.cancel(false);
+            Thread.currentThread().interrupt();
+            throw interrupted();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(ex.getCause());
+        }
+    }
+}
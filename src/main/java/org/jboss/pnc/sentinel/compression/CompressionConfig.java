@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.compression;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Compression of the provenances and attestation bundles which are stored or transferred, see
+ * {@link DictionaryCompressor}.
+ */
+@ConfigMapping(prefix = "sentinel.compression")
+public interface CompressionConfig {
+
+    /**
+     * The dictionary to compress with, trained by {@link DictionaryTrainer}. Without it the data is compressed without
+     * dictionary.
+     */
+    Optional<Path> dictionary();
+
+    /**
+     * The dictionaries used before the current one was trained, still needed to decompress what they compressed.
+     */
+    Optional<List<Path>> previousDictionaries();
+
+    /**
+     * The zlib compression level, from 0 to 9.
+     */
+    @WithDefault("6")
+    int level();
+
+    /**
+     * The size, in bytes, above which decompressing fails, so that a small corrupted or malicious stream cannot expand
+     * to exhaust the memory.
+     */
+    @WithDefault("67108864")
+    int maxDecompressedSize();
+}
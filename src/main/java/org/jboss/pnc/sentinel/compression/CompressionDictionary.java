@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.compression;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+/**
+ * <p>
+ * A preset dictionary for the {@link DictionaryCompressor}, e.g. trained by {@link DictionaryTrainer} from a sample of
+ * provenances and attestation bundles.
+ * </p>
+ *
+ * <p>
+ * It is identified by the Adler-32 checksum of its content, which is the dictionary identifier zlib records in every
+ * stream compressed with it. A stream can therefore always be matched with the dictionary it needs.
+ * </p>
+ */
+public final class CompressionDictionary {
+
+    /**
+     * Largest useful dictionary: DEFLATE cannot reference data further back than 32 KiB.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private final byte[] content;
+
+    private final long id;
+
+    private CompressionDictionary(byte[] content) {
+        this.content = content;
+        Adler32 adler = new Adler32();
+        adler.update(content);
+        this.id = adler.getValue();
+    }
+
+    public static CompressionDictionary of(byte[] content) {
+        if (content.length == 0 || content.length > MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    "Dictionary size must be between 1 and " + MAX_SIZE + " bytes, got " + content.length);
+        }
+        return new CompressionDictionary(content.clone());
+    }
+
+    public static CompressionDictionary load(Path path) throws IOException {
+        return of(Files.readAllBytes(path));
+    }
+
+    public void save(Path path) throws IOException {
+        Files.write(path, content);
+    }
+
+    /**
+     * The zlib identifier of the dictionary, i.e. the Adler-32 checksum of its content.
+     */
+    public long id() {
+        return id;
+    }
+
+    public int size() {
+        return content.length;
+    }
+
+    public byte[] content() {
+        return content.clone();
+    }
+
+    byte[] bytes() {
+        return content;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompressionDictionary dictionary && Arrays.equals(content, dictionary.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(content);
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionDictionary[id=" + Long.toHexString(id) + ", size=" + content.length + "]";
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+
+/**
+ * <p>
+ * Compresses provenances and attestation bundles for storage and transfer as zlib streams primed with a preset
+ * {@link CompressionDictionary}.
+ * </p>
+ *
+ * <p>
+ * These documents are small and repeat the same keys, purl prefixes, PNC URLs and builder versions, which a generic
+ * compressor has to learn again in every document. With a dictionary trained on real output they are referenced from
+ * the first byte on.
+ * </p>
+ *
+ * <p>
+ * Streams compressed with a previous dictionary can still be decompressed as long as that dictionary is passed as one
+ * of the {@code previous} ones, so a dictionary can be retrained without recompressing what is already stored. Streams
+ * compressed without any dictionary are decompressed too.
+ * </p>
+ */
+public class DictionaryCompressor {
+
+    /**
+     * The level zlib uses by default, a good balance of speed and ratio.
+     */
+    public static final int DEFAULT_LEVEL = 6;
+
+    /**
+     * Far above the size of any provenance or bundle.
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 64 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CompressionDictionary dictionary;
+
+    private final Map<Long, CompressionDictionary> dictionaries = new HashMap<>();
+
+    private final int level;
+
+    private final int maxDecompressedSize;
+
+    /**
+     * @param dictionary the dictionary to compress with, or {@code null} to compress without dictionary
+     * @param previous the dictionaries of the streams compressed before the current one was trained
+     * @param level the zlib compression level, from 0 to 9
+     * @param maxDecompressedSize the size, in bytes, above which decompressing fails instead of exhausting the memory
+     */
+    public DictionaryCompressor(
+            CompressionDictionary dictionary,
+            Collection<CompressionDictionary> previous,
+            int level,
+            int maxDecompressedSize) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9, got " + level);
+        }
+        if (maxDecompressedSize < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum decompressed size must be positive, got " + maxDecompressedSize);
+        }
+
+        this.dictionary = dictionary;
+        this.level = level;
+        this.maxDecompressedSize = maxDecompressedSize;
+        previous.forEach(d -> dictionaries.put(d.id(), d));
+        if (dictionary != null) {
+            dictionaries.put(dictionary.id(), dictionary);
+        }
+    }
+
+    public DictionaryCompressor(
+            CompressionDictionary dictionary,
+            Collection<CompressionDictionary> previous,
+            int level) {
+        this(dictionary, previous, level, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    public DictionaryCompressor(CompressionDictionary dictionary) {
+        this(dictionary, List.of(), DEFAULT_LEVEL);
+    }
+
+    public CompressionDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary.bytes());
+            }
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @throws ApplicationException when the data is corrupted, needs an unknown dictionary, or decompresses to more
+     *         than the maximum decompressed size
+     */
+    public byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    (int) Math.min(maxDecompressedSize, Math.max(64L, data.length * 4L)));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read > maxDecompressedSize - out.size()) {
+                    throw new ApplicationException(
+                            "Compressed data decompresses to more than the maximum of {} bytes",
+                            maxDecompressedSize);
+                }
+                if (read > 0) {
+                    out.write(buffer, 0, read);
+                } else if (inflater.needsDictionary()) {
+                    // The zlib dictionary identifier is an unsigned 32-bit checksum
+                    long id = Integer.toUnsignedLong(inflater.getAdler());
+                    CompressionDictionary needed = dictionaries.get(id);
+                    if (needed == null) {
+                        throw new ApplicationException(
+                                "Data was compressed with the unknown dictionary {}",
+                                Long.toHexString(id));
+                    }
+                    inflater.setDictionary(needed.bytes());
+                } else if (inflater.needsInput()) {
+                    throw new ApplicationException("Compressed data is truncated");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new ApplicationException("Compressed data is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.compression;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+@ApplicationScoped
+@Slf4j
+public class DictionaryCompressorProducer {
+
+    @Inject
+    CompressionConfig config;
+
+    @Produces
+    @ApplicationScoped
+    public DictionaryCompressor produceDictionaryCompressor() {
+        CompressionDictionary dictionary = config.dictionary().map(DictionaryCompressorProducer::load).orElse(null);
+        List<CompressionDictionary> previous = new ArrayList<>();
+        config.previousDictionaries().orElse(List.of()).forEach(path -> previous.add(load(path)));
+
+        log.debug(
+                "Creating new dictionary compressor with {} and {} previous dictionaries...",
+                dictionary == null ? "no dictionary" : dictionary,
+                previous.size());
+        return new DictionaryCompressor(dictionary, previous, config.level(), config.maxDecompressedSize());
+    }
+
+    private static CompressionDictionary load(Path path) {
+        try {
+            return CompressionDictionary.load(path);
+        } catch (IOException e) {
+            throw new ApplicationException("Compression dictionary '{}' could not be read", path, e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.compression;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Trains a {@link CompressionDictionary} from a sample of real documents, e.g. provenances and {@code .intoto.jsonl}
+ * bundles produced by Sentinel.
+ * </p>
+ *
+ * <p>
+ * The training follows the idea of the zstd COVER algorithm: every 8-byte sequence is scored by the number of samples
+ * it occurs in, the samples are split into as many epochs as the dictionary has segments, and from each epoch the
+ * segment covering the most frequent sequences not covered yet is selected. The best segments are placed at the end of
+ * the dictionary, which is the closest to the compressed data and therefore the cheapest to reference.
+ * </p>
+ *
+ * <p>
+ * It can be run from the command line to retrain the dictionary:
+ * {@code java -cp <classpath> org.jboss.pnc.sentinel.compression.DictionaryTrainer [--size <bytes>] <dictionary> <sample file or directory>...}
+ * </p>
+ */
+public final class DictionaryTrainer {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64;
+
+    /**
+     * Length of the scored sequences, packed into a {@code long}.
+     */
+    private static final int K = 8;
+
+    private DictionaryTrainer() {
+        // This is a utility class
+    }
+
+    public static CompressionDictionary train(Collection<byte[]> samples, int maxSize) {
+        return train(samples, maxSize, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Train a dictionary of at most {@code maxSize} bytes made of segments of {@code segmentSize} bytes selected from
+     * the {@code samples}.
+     */
+    public static CompressionDictionary train(Collection<byte[]> samples, int maxSize, int segmentSize) {
+        if (maxSize < 1 || maxSize > CompressionDictionary.MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    "Dictionary size must be between 1 and " + CompressionDictionary.MAX_SIZE + ", got " + maxSize);
+        }
+        if (segmentSize < K || segmentSize > maxSize) {
+            throw new IllegalArgumentException(
+                    "Segment size must be between " + K + " and the dictionary size, got " + segmentSize);
+        }
+
+        Map<Long, Integer> frequencies = sampleFrequencies(samples);
+
+        List<byte[]> usable = samples.stream().filter(sample -> sample.length >= segmentSize).toList();
+        long total = usable.stream().mapToLong(sample -> sample.length).sum();
+        if (total == 0) {
+            throw new IllegalArgumentException("No sample is at least " + segmentSize + " bytes long");
+        }
+
+        int epochs = Math.max(1, maxSize / segmentSize);
+        long epochSize = Math.max(segmentSize, total / epochs);
+
+        List<Segment> segments = new ArrayList<>();
+        long epochStart = 0;
+        long position = 0;
+        Segment best = null;
+        for (byte[] sample : usable) {
+            int score = 0;
+            for (int start = 0; start + segmentSize <= sample.length; start++) {
+                boolean rescore = start == 0;
+                if (position + start >= epochStart + epochSize) {
+                    // Selecting a segment changes the frequencies, the rolling score has to be computed again
+                    rescore |= select(best, segments, frequencies);
+                    best = null;
+                    epochStart = position + start;
+                }
+                score = rescore ? score(sample, start, segmentSize, frequencies)
+                        : slide(score, sample, start, segmentSize, frequencies);
+                if (best == null || score > best.score()) {
+                    best = new Segment(sample, start, segmentSize, score);
+                }
+            }
+            position += sample.length;
+        }
+        select(best, segments, frequencies);
+
+        return assemble(segments, maxSize);
+    }
+
+    private static Map<Long, Integer> sampleFrequencies(Collection<byte[]> samples) {
+        Map<Long, Integer> frequencies = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + K <= sample.length; i++) {
+                long sequence = sequence(sample, i);
+                if (seen.add(sequence)) {
+                    frequencies.merge(sequence, 1, Integer::sum);
+                }
+            }
+        }
+        return frequencies;
+    }
+
+    private static int score(byte[] sample, int start, int segmentSize, Map<Long, Integer> frequencies) {
+        int score = 0;
+        for (int i = start; i + K <= start + segmentSize; i++) {
+            score += weight(sequence(sample, i), frequencies);
+        }
+        return score;
+    }
+
+    private static int slide(int previous, byte[] sample, int start, int segmentSize, Map<Long, Integer> frequencies) {
+        return previous - weight(sequence(sample, start - 1), frequencies)
+                + weight(sequence(sample, start + segmentSize - K), frequencies);
+    }
+
+    /**
+     * Sequences found in a single sample do not help compressing other documents.
+     */
+    private static int weight(long sequence, Map<Long, Integer> frequencies) {
+        int frequency = frequencies.getOrDefault(sequence, 0);
+        return frequency > 1 ? frequency : 0;
+    }
+
+    /**
+     * @return whether a segment was selected
+     */
+    private static boolean select(Segment best, List<Segment> segments, Map<Long, Integer> frequencies) {
+        if (best == null || best.score() == 0) {
+            return false;
+        }
+        segments.add(best);
+        // The sequences are covered now, the next epochs look for other content
+        for (int i = best.offset(); i + K <= best.offset() + best.length(); i++) {
+            frequencies.remove(sequence(best.sample(), i));
+        }
+        return true;
+    }
+
+    private static CompressionDictionary assemble(List<Segment> segments, int maxSize) {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("The samples have no content in common to train a dictionary from");
+        }
+
+        List<Segment> ordered = new ArrayList<>(segments);
+        ordered.sort(Comparator.comparingInt(Segment::score));
+
+        int size = ordered.stream().mapToInt(Segment::length).sum();
+        byte[] content = new byte[Math.min(size, maxSize)];
+        // Fill from the end so that the best segments are kept when there are too many
+        int end = content.length;
+        for (int i = ordered.size() - 1; i >= 0 && end > 0; i--) {
+            Segment segment = ordered.get(i);
+            int length = Math.min(segment.length(), end);
+            System.arraycopy(
+                    segment.sample(),
+                    segment.offset() + segment.length() - length,
+                    content,
+                    end - length,
+                    length);
+            end -= length;
+        }
+        return CompressionDictionary.of(content);
+    }
+
+    private static long sequence(byte[] data, int offset) {
+        long sequence = 0;
+        for (int i = offset; i < offset + K; i++) {
+            sequence = (sequence << 8) | (data[i] & 0xff);
+        }
+        return sequence;
+    }
+
+    private record Segment(byte[] sample, int offset, int length, int score) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = CompressionDictionary.MAX_SIZE;
+        int next = 0;
+        if (args.length > 1 && args[0].equals("--size")) {
+            size = Integer.parseInt(args[1]);
+            next = 2;
+        }
+        if (args.length - next < 2) {
+            System.err.println("Usage: DictionaryTrainer [--size <bytes>] <dictionary> <sample file or directory>...");
+            System.exit(1);
+        }
+
+        Path output = Paths.get(args[next]);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = next + 1; i < args.length; i++) {
+            try (Stream<Path> files = Files.walk(Paths.get(args[i]))) {
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    try {
+                        samples.add(Files.readAllBytes(file));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+
+        CompressionDictionary dictionary = train(samples, size);
+        dictionary.save(output);
+        System.out.println(
+                "Trained " + dictionary + " from " + samples.size() + " samples, saved to " + output.toAbsolutePath());
+    }
+}
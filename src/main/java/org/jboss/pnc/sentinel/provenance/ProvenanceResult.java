@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance;
+
+import java.util.concurrent.CompletionException;
+
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+
+/**
+ * The outcome of the provenance generation of a single build within a batch: either the {@code provenance} or the
+ * {@code error} which prevented its generation.
+ */
+public record ProvenanceResult(String buildId, Provenance provenance, Throwable error) {
+
+    public static ProvenanceResult success(String buildId, Provenance provenance) {
+        return new ProvenanceResult(buildId, provenance, null);
+    }
+
+    public static ProvenanceResult failure(String buildId, Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return new ProvenanceResult(buildId, null, cause);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+import org.jboss.pnc.sentinel.PncBuildRevision;
+import org.jboss.pnc.sentinel.PncService;
+import org.jboss.pnc.sentinel.concurrent.SingleFlight;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfigProvider;
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceUtils;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates provenances of PNC builds.
+ */
+@ApplicationScoped
+@Slf4j
+public class ProvenanceService {
+
+    @Inject
+    PncService pncService;
+
+    @Inject
+    ProvenanceConfigProvider config;
+
+    /**
+     * Concurrent requests for the provenance of the same build share a single generation.
+     */
+    final SingleFlight<String, Provenance> generations = new SingleFlight<>();
+
+    /**
+     * <p>
+     * Generate the provenance of the PNC build identified by the particular {@code buildId}.
+     * </p>
+     *
+     * <p>
+     * When the provenance of the same build is already being generated, its pending result is returned instead of
+     * fetching everything from PNC again.
+     * </p>
+     *
+     * @param buildId the PNC build identifier
+     * @return the pending provenance
+     */
+    public CompletableFuture<Provenance> generate(String buildId) {
+        return generations.executeAsync(buildId, () -> {
+            log.debug("Generating provenance of PNC build '{}'", buildId);
+            return ProvenanceUtils.createFullPNCBuildProvenanceAsync(pncService, buildId, config);
+        });
+    }
+
+    /**
+     * <p>
+     * Generate the provenance of the PNC build whose {@link PncBuildRevision} is already fetched, e.g. to check the
+     * preconditions of a request.
+     * </p>
+     *
+     * <p>
+     * The generation is shared with the concurrent {@link #generate(String)} of the same build.
+     * </p>
+     *
+     * @param buildRevision the PNC build and its revision
+     * @return the pending provenance
+     */
+    public CompletableFuture<Provenance> generate(PncBuildRevision buildRevision) {
+        String buildId = buildRevision.build().getId();
+        return generations.executeAsync(buildId, () -> {
+            log.debug("Generating provenance of PNC build '{}'", buildId);
+            return ProvenanceUtils.createFullPNCBuildProvenanceAsync(pncService, buildRevision, config);
+        });
+    }
+
+    /**
+     * Generate the provenances of all the PNC builds identified by the {@code buildIds}, with the configured
+     * parallelism.
+     *
+     * @param buildIds the PNC build identifiers
+     * @return the results, in completion order
+     * @see #generateAll(Collection, int)
+     */
+    public Multi<ProvenanceResult> generateAll(Collection<String> buildIds) {
+        return generateAll(buildIds, config.getConfig().batch().parallelism());
+    }
+
+    /**
+     * <p>
+     * Generate the provenances of all the PNC builds identified by the {@code buildIds}.
+     * </p>
+     *
+     * <p>
+     * At most {@code parallelism} generations run at the same time, and the next ones are started only as fast as the
+     * subscriber consumes the results. A failed generation does not stop the batch, it is reported as a failed
+     * {@link ProvenanceResult}.
+     * </p>
+     *
+     * @param buildIds the PNC build identifiers
+     * @param parallelism the maximum number of generations running at the same time
+     * @return the results, in completion order
+     */
+    public Multi<ProvenanceResult> generateAll(Collection<String> buildIds, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, got " + parallelism);
+        }
+
+        log.debug("Generating provenances of {} PNC builds, {} at a time", buildIds.size(), parallelism);
+
+        return Multi.createFrom()
+                .iterable(buildIds)
+                .onItem()
+                .transformToUni(
+                        buildId -> Uni.createFrom()
+                                .completionStage(() -> generate(buildId))
+                                .onItem()
+                                .transform(provenance -> ProvenanceResult.success(buildId, provenance))
+                                .onFailure()
+                                .recoverWithItem(error -> {
+                                    log.warn("Provenance of PNC build '{}' could not be generated", buildId, error);
+                                    return ProvenanceResult.failure(buildId, error);
+                                }))
+                .merge(parallelism);
+    }
+}
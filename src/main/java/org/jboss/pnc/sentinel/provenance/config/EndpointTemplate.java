@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An endpoint template such as {@code https://pnc/builds/{id}/logs/build}, split once around its {@code {id}}
+ * placeholders so that expanding it only concatenates the literal parts with the identifier.
+ */
+public final class EndpointTemplate {
+
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    private final String template;
+
+    /**
+     * The literal parts around the placeholders, one more than the placeholders.
+     */
+    private final String[] literals;
+
+    private final int literalsLength;
+
+    private EndpointTemplate(String template, String[] literals) {
+        this.template = template;
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    public static EndpointTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        int index;
+        while ((index = template.indexOf(ID_PLACEHOLDER, start)) >= 0) {
+            literals.add(template.substring(start, index));
+            start = index + ID_PLACEHOLDER.length();
+        }
+        literals.add(template.substring(start));
+        return new EndpointTemplate(template, literals.toArray(String[]::new));
+    }
+
+    /**
+     * Replace every placeholder with the {@code id}.
+     */
+    public String expand(String id) {
+        if (literals.length == 1) {
+            return template;
+        }
+
+        StringBuilder endpoint = new StringBuilder(literalsLength + (literals.length - 1) * id.length());
+        endpoint.append(literals[0]);
+        for (int i = 1; i < literals.length; i++) {
+            endpoint.append(id).append(literals[i]);
+        }
+        return endpoint.toString();
+    }
+
+    public String template() {
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
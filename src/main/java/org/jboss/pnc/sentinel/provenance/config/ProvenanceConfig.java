@@ -20,6 +20,7 @@ package org.jboss.pnc.sentinel.provenance.config;
 import java.util.Map;
 
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 import io.smallrye.config.WithName;
 
 @ConfigMapping(prefix = "provenance")
@@ -29,6 +30,10 @@ public interface ProvenanceConfig {
 
     SlsaConfig slsa();
 
+    BatchConfig batch();
+
+    DescriptorsConfig descriptors();
+
     interface PncConfig {
         @WithName("buildType")
         String buildType();
@@ -73,4 +78,21 @@ public interface ProvenanceConfig {
         }
     }
 
+    interface BatchConfig {
+        /**
+         * Maximum number of builds whose provenance is generated at the same time within a batch.
+         */
+        @WithDefault("8")
+        int parallelism();
+    }
+
+    interface DescriptorsConfig {
+        /**
+         * Minimum number of artifacts from which their resource descriptors are created in parallel, 0 to always create
+         * them sequentially. Below about 100k artifacts the split does not pay off, see
+         * {@code ResourceDescriptorsBenchmark}.
+         */
+        @WithDefault("100000")
+        int parallelThreshold();
+    }
 }
@@ -17,28 +17,54 @@
  */
 package org.jboss.pnc.sentinel.provenance.config;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import org.jboss.pnc.sentinel.enums.BuildSystem;
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfig.SlsaConfig.SpecConfig.ProvenanceSpec;
+import org.jboss.pnc.sentinel.provenance.model.Builder;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
 @ApplicationScoped
+@Slf4j
 public class ProvenanceConfigProvider {
 
     @Inject
     @Getter
     ProvenanceConfig config;
 
+    /**
+     * The fragments prepared from the configuration when the application starts.
+     */
+    private volatile ProvenanceFragments fragments;
+
+    /**
+     * Prepare the fragments when the application starts rather than on the first provenance, so that an invalid
+     * configuration fails the startup and the first provenance is not slower than the next ones.
+     */
+    void onStart(@Observes StartupEvent event) {
+        fragments = prepareFragments();
+    }
+
     public String getBuildLogEndpoint(String buildId) {
-        return config.pnc().buildLog().endpoint().replace("{id}", buildId);
+        return getFragments().buildLog().expand(buildId);
     }
 
     public String getAlignmentLogEndpoint(String buildId) {
-        return config.pnc().alignmentLog().endpoint().replace("{id}", buildId);
+        return getFragments().alignmentLog().expand(buildId);
     }
 
     public Map<String, String> getPncComponentVersions() {
@@ -57,4 +83,53 @@ public class ProvenanceConfigProvider {
         throw new IllegalStateException("No Builder SLSA spec defined for '" + buildSystem + "'");
     }
 
+    /**
+     * <p>
+     * Get the parts of the provenance which are the same for every build: the SLSA spec header, the PNC builder with
+     * its serialized form, and the compiled log endpoints.
+     * </p>
+     *
+     * <p>
+     * They are prepared once, when the application starts, as the configuration does not change afterwards.
+     * </p>
+     *
+     * @throws IllegalStateException when called before the application started
+     */
+    public ProvenanceFragments getFragments() {
+        ProvenanceFragments current = fragments;
+        if (current == null) {
+            throw new IllegalStateException("The fragments of the provenance are prepared when the application starts");
+        }
+        return current;
+    }
+
+    private ProvenanceFragments prepareFragments() {
+        ProvenanceConfig current = config;
+        ProvenanceSpec spec = getProvenanceSlsaSpecs(current.slsa().spec().version());
+        Builder builder = Builder.builder()
+                .id(BuildSystem.PNC.toName())
+                .version(Collections.unmodifiableSortedMap(new TreeMap<>(getPncComponentVersions())))
+                .build();
+
+        String serializedBuilder;
+        try {
+            serializedBuilder = ObjectMapperProvider.json().writeValueAsString(builder);
+        } catch (JsonProcessingException e) {
+            throw new ApplicationException("The PNC builder of the provenance could not be serialized", e);
+        }
+
+        ProvenanceFragments prepared = new ProvenanceFragments(
+                spec,
+                new SerializedString(spec.type()),
+                new SerializedString(spec.predicateType()),
+                builder,
+                new SerializedString(serializedBuilder),
+                EndpointTemplate.compile(current.pnc().buildLog().endpoint()),
+                EndpointTemplate.compile(current.pnc().alignmentLog().endpoint()));
+
+        log.debug(
+                "Prepared the constant fragments of the provenance for SLSA spec {}",
+                current.slsa().spec().version());
+        return prepared;
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.config;
+
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfig.SlsaConfig.SpecConfig.ProvenanceSpec;
+import org.jboss.pnc.sentinel.provenance.model.Builder;
+
+import com.fasterxml.jackson.core.SerializableString;
+
+/**
+ * The parts of a provenance which only depend on the configuration, prepared once by {@link ProvenanceConfigProvider}
+ * and shared by all the provenances.
+ *
+ * @param spec the SLSA spec of the configured version
+ * @param type the {@code _type} of the spec, pre-encoded as a JSON string value
+ * @param predicateType the {@code predicateType} of the spec, pre-encoded as a JSON string value
+ * @param builder the {@code builder} of the run details
+ * @param serializedBuilder the canonical JSON of the {@code builder}, to be written as a raw value
+ * @param buildLog the compiled build log endpoint
+ * @param alignmentLog the compiled alignment log endpoint
+ */
+public record ProvenanceFragments(ProvenanceSpec spec, SerializableString type, SerializableString predicateType,
+        Builder builder, SerializableString serializedBuilder, EndpointTemplate buildLog,
+        EndpointTemplate alignmentLog) {
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import org.jboss.pnc.sentinel.signing.BatchSigner;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * The Cosign key pair the provenances are signed with. The password of the private key is read from
+ * {@code cosign.password}. Without keys the provenances are served unsigned only.
+ */
+@ConfigMapping(prefix = "sentinel.signing")
+public interface SigningConfig {
+
+    /**
+     * The Cosign private key.
+     */
+    Optional<Path> privateKey();
+
+    /**
+     * The Cosign public key matching the private key.
+     */
+    Optional<Path> publicKey();
+
+    /**
+     * How the provenances are signed. The {@link Engine#IN_PROCESS} engine is an explicit opt-in: it does not upload
+     * the signatures to the Rekor transparency log, so verifiers need
+     * {@code cosign verify-blob --insecure-ignore-tlog}.
+     */
+    @WithDefault("cosign")
+    Engine engine();
+
+    /**
+     * Signing of the provenances in batches, see {@link BatchSigner}.
+     */
+    BatchConfig batch();
+
+    /**
+     * The Cosign CLI, when it is the {@link Engine#COSIGN} engine.
+     */
+    CosignConfig cosign();
+
+    interface BatchConfig {
+
+        /**
+         * Whether the signed provenances are signed in batches, with a Merkle inclusion proof instead of a signature of
+         * their own.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * How long the provenances of a batch are collected, from the first one.
+         */
+        @WithDefault("PT0.2S")
+        Duration window();
+
+        /**
+         * The number of provenances above which a batch is signed without waiting for the window.
+         */
+        @WithDefault("1024")
+        int maxSize();
+    }
+
+    interface CosignConfig {
+
+        /**
+         * Whether the provenances are piped to Cosign and the signatures read from its output, rather than written to
+         * and read from temp files.
+         */
+        @WithDefault("true")
+        boolean pipes();
+
+        /**
+         * The directory of the files Cosign cannot pipe, preferably RAM-backed. Defaults to {@code /dev/shm} if
+         * available, the temp directory otherwise.
+         */
+        Optional<Path> scratchDir();
+
+        /**
+         * The maximum number of Cosign processes running at once, the other signings wait in arrival order. Defaults to
+         * the number of processors.
+         */
+        OptionalInt maxProcesses();
+
+        /**
+         * How long a signing may take, waiting for a Cosign process included, before it fails and its Cosign process is
+         * killed.
+         */
+        @WithDefault("PT2M")
+        Duration timeout();
+    }
+
+    enum Engine {
+        /**
+         * In process, with the private key decrypted once. No Rekor transparency log entry is created, the signatures
+         * have to be verified with {@code --insecure-ignore-tlog}.
+         */
+        IN_PROCESS,
+        /**
+         * With the Cosign CLI, started for every provenance.
+         */
+        COSIGN
+    }
+}
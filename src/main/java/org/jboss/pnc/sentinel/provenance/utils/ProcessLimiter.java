@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.utils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.pnc.sentinel.resilience.LatencyTracker;
+
+/**
+ * <p>
+ * Limits the number of processes running concurrently, without blocking the callers waiting for a slot.
+ * </p>
+ *
+ * <p>
+ * A caller in excess of the limit gets a future completed when a slot is released to it. The slots are released in
+ * arrival order, and a new caller never takes a slot over a waiting one. A caller waits up to its timeout, after which
+ * its future fails with a {@link TimeoutException}. The time spent waiting is tracked to tell whether the limit is too
+ * low for the load.
+ * </p>
+ */
+public class ProcessLimiter {
+
+    private static final int QUEUE_WAIT_SAMPLES = 1000;
+
+    private final int limit;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private final LatencyTracker queueWaits = new LatencyTracker(QUEUE_WAIT_SAMPLES);
+
+    private final LongAdder granted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder killed = new LongAdder();
+
+    private int running;
+
+    public ProcessLimiter(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit of concurrent processes must be positive");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Wait for a slot to run a process, which must be {@link #release() released} once the process exited.
+     *
+     * @param timeout how long to wait for a slot at most
+     * @return a future completed once the slot is granted
+     */
+    public CompletableFuture<Void> acquire(Duration timeout) {
+        Waiter waiter;
+        synchronized (this) {
+            if (running < limit && waiters.isEmpty()) {
+                running++;
+                grant(Duration.ZERO);
+                return CompletableFuture.completedFuture(null);
+            }
+            waiter = new Waiter(new CompletableFuture<>(), System.nanoTime());
+            waiters.add(waiter);
+        }
+
+        // Unlike a task of a delayed executor, the timeout is cancelled once the slot is granted
+        waiter.slot().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        waiter.slot().whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+                if (ex instanceof TimeoutException) {
+                    rejected.increment();
+                }
+            }
+        });
+        return waiter.slot();
+    }
+
+    /**
+     * Release a slot, to the first caller waiting if any.
+     */
+    public synchronized void release() {
+        Waiter next;
+        while ((next = waiters.poll()) != null) {
+            // The waiter may have timed out or been cancelled in the meantime
+            if (next.slot().complete(null)) {
+                grant(Duration.ofNanos(System.nanoTime() - next.queuedAt()));
+                return;
+            }
+        }
+        running--;
+    }
+
+    /**
+     * Count a process killed because it did not complete in time.
+     */
+    public void killed() {
+        killed.increment();
+    }
+
+    public ProcessLimiterStats getStats() {
+        int currentRunning;
+        int currentQueued;
+        synchronized (this) {
+            currentRunning = running;
+            currentQueued = waiters.size();
+        }
+        return new ProcessLimiterStats(
+                limit,
+                currentRunning,
+                currentQueued,
+                granted.sum(),
+                rejected.sum(),
+                killed.sum(),
+                queueWaits.percentile(50),
+                queueWaits.percentile(99));
+    }
+
+    private void grant(Duration queueWait) {
+        granted.increment();
+        queueWaits.record(queueWait);
+    }
+
+    private record Waiter(CompletableFuture<Void> slot, long queuedAt) {
+    }
+}
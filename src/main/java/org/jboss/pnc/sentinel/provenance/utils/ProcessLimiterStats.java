@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.utils;
+
+import java.time.Duration;
+
+/**
+ * State of a {@link ProcessLimiter}.
+ *
+ * @param limit the maximum number of concurrent processes
+ * @param running the number of processes running
+ * @param queued the number of callers waiting for a process slot
+ * @param granted the number of slots granted
+ * @param rejected the number of callers which gave up waiting for a slot
+ * @param killed the number of processes killed because they did not complete in time
+ * @param queueWaitP50 the median time the recent callers waited for a slot, {@code null} when none was granted yet
+ * @param queueWaitP99 the 99th percentile of the time the recent callers waited for a slot, {@code null} when none was
+ *        granted yet
+ */
+public record ProcessLimiterStats(int limit, int running, int queued, long granted, long rejected, long killed,
+        Duration queueWaitP50, Duration queueWaitP99) {
+}
@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains an output of a process into a bounded in-memory ring buffer, so that the process never blocks on a full pipe
+ * and the end of its output is available once it exits.
+ *
+ * <p>
+ * The drains of all the processes share two threads: a drain never waits on its stream, it reads what is available and
+ * polls again later, and reads what is left in the pipe once the process exits. Hundreds of concurrent processes
+ * therefore need neither hundreds of threads nor files. Only the last {@code capacity} bytes are kept, enough for a
+ * signature or the tail of an error, whatever the process prints.
+ * </p>
+ */
+@Slf4j
+public final class ProcessOutputDrain {
+
+    /** The bytes kept by default, of every output */
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    /** The delay between two reads of an output with nothing available */
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private static final ScheduledExecutorService EXECUTOR = newExecutor();
+
+    private final Process process;
+    private final InputStream output;
+    private final byte[] ring;
+    private final CompletableFuture<ProcessOutputDrain> completion = new CompletableFuture<>();
+
+    /** The number of bytes drained, of which the last {@code ring.length} are kept */
+    private long size;
+
+    private ProcessOutputDrain(Process process, InputStream output, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.process = process;
+        this.output = output;
+        this.ring = new byte[capacity];
+    }
+
+    /**
+     * Starts draining the {@code output} of the {@code process}, keeping the last {@link #DEFAULT_CAPACITY} bytes.
+     */
+    public static ProcessOutputDrain start(Process process, InputStream output) {
+        return start(process, output, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Starts draining the {@code output} of the {@code process}, keeping the last {@code capacity} bytes.
+     */
+    public static ProcessOutputDrain start(Process process, InputStream output, int capacity) {
+        ProcessOutputDrain drain = new ProcessOutputDrain(process, output, capacity);
+        EXECUTOR.execute(drain::poll);
+        // Read the end of the output as soon as the process exits, rather than on the next poll
+        process.onExit().thenRun(() -> EXECUTOR.execute(drain::poll));
+        return drain;
+    }
+
+    /**
+     * Completes with this drain once the whole output is drained, which happens shortly after the process exits.
+     */
+    public CompletableFuture<ProcessOutputDrain> completion() {
+        return completion;
+    }
+
+    /**
+     * Waits until the whole output is drained.
+     */
+    public ProcessOutputDrain await() throws InterruptedException {
+        try {
+            return completion.get();
+        } catch (ExecutionException ex) {
+            // Never completed exceptionally
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * The number of bytes drained so far, including the ones no longer kept.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Whether the first bytes of the output were dropped to keep the last ones.
+     */
+    public synchronized boolean truncated() {
+        return size > ring.length;
+    }
+
+    /**
+     * The bytes kept so far, in order: the whole output unless {@link #truncated()}.
+     */
+    public synchronized byte[] bytes() {
+        if (size <= ring.length) {
+            return Arrays.copyOf(ring, (int) size);
+        }
+        int start = (int) (size % ring.length);
+        byte[] bytes = new byte[ring.length];
+        System.arraycopy(ring, start, bytes, 0, ring.length - start);
+        System.arraycopy(ring, 0, bytes, ring.length - start, start);
+        return bytes;
+    }
+
+    /**
+     * The bytes kept so far as UTF-8 text, starting with {@code [...]} if {@link #truncated()}.
+     */
+    public String tail() {
+        String tail = new String(bytes(), StandardCharsets.UTF_8);
+        return truncated() ? "[...]" + tail : tail;
+    }
+
+    /**
+     * Stops draining and completes with what was drained so far, closing the output.
+     */
+    public synchronized void close() {
+        if (!completion.isDone()) {
+            complete();
+        }
+    }
+
+    private synchronized void poll() {
+        if (completion.isDone()) {
+            return;
+        }
+        try {
+            // Check if the process is alive first: all its output is in the pipe once it exited
+            boolean exited = !process.isAlive();
+            int available = output.available();
+            while (available > 0) {
+                int position = (int) (size % ring.length);
+                int read = output.read(ring, position, Math.min(available, ring.length - position));
+                if (read < 0) {
+                    break;
+                }
+                size += read;
+                available = output.available();
+            }
+            // Never wait for the end of the stream, a child of the process may have inherited the pipe and keep it
+            // open long after the process exited
+            if (exited) {
+                complete();
+                return;
+            }
+        } catch (IOException ex) {
+            // The stream is closed when the process is destroyed
+            log.debug("Output of process {} could not be drained further", process.pid(), ex);
+            complete();
+            return;
+        }
+        EXECUTOR.schedule(this::poll, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void complete() {
+        try {
+            output.close();
+        } catch (IOException ex) {
+            log.debug("Output of process {} could not be closed", process.pid(), ex);
+        }
+        completion.complete(this);
+    }
+
+    private static ScheduledExecutorService newExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "process-drain-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.jboss.pnc.dto.Build;
+import org.jboss.pnc.dto.BuildConfigurationRevision;
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfigProvider;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceFragments;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * <p>
+ * The SHA-256 fingerprint of everything a provenance is generated from: the PNC {@link Build} and
+ * {@link BuildConfigurationRevision}, and the configuration of the provenance. Two provenances with the same
+ * fingerprint are byte for byte the same, so the fingerprint can be used as a strong ETag.
+ * </p>
+ *
+ * <p>
+ * The artifacts are not part of the fingerprint: the artifacts of a finished build never change, so they are identified
+ * by the build. This keeps the fingerprint computable from the cached build and revision alone, without listing the
+ * artifacts again. The provenances of builds which are still running have no fingerprint.
+ * </p>
+ */
+public final class ProvenanceFingerprint {
+
+    /**
+     * Changed whenever the same inputs produce a different provenance, e.g. when the generation changes.
+     */
+    static final String VERSION = "1";
+
+    /**
+     * The computed fingerprints, keyed by the identity of the build, with the inputs they were computed from.
+     */
+    private static final Cache<Build, Computed> COMPUTED = Caffeine.newBuilder().weakKeys().build();
+
+    private ProvenanceFingerprint() {
+    }
+
+    /**
+     * Compute the fingerprint of the provenance of a finished build.
+     *
+     * @param pncBuild the PNC build
+     * @param pncBuildConfigRevision the PNC build config revision of the build
+     * @param config the configuration the provenance is generated with
+     * @return the hex-encoded fingerprint, or empty if the build is not finished yet
+     */
+    public static Optional<String> of(
+            Build pncBuild,
+            BuildConfigurationRevision pncBuildConfigRevision,
+            ProvenanceConfigProvider config) {
+        if (pncBuild.getStatus() == null || !pncBuild.getStatus().isFinal()) {
+            return Optional.empty();
+        }
+
+        ProvenanceFragments fragments = config.getFragments();
+        String buildType = config.getConfig().pnc().buildType();
+        Computed computed = COMPUTED.getIfPresent(pncBuild);
+        if (computed == null || !computed.isFor(pncBuildConfigRevision, fragments, buildType)) {
+            computed = new Computed(
+                    pncBuildConfigRevision,
+                    fragments,
+                    buildType,
+                    compute(pncBuild, pncBuildConfigRevision, fragments, buildType));
+            COMPUTED.put(pncBuild, computed);
+        }
+        return Optional.of(computed.fingerprint());
+    }
+
+    private static String compute(
+            Build pncBuild,
+            BuildConfigurationRevision pncBuildConfigRevision,
+            ProvenanceFragments fragments,
+            String buildType) {
+        MessageDigest digest = sha256();
+        try (JsonGenerator generator = ObjectMapperProvider.json()
+                .createGenerator(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            generator.writeStartArray();
+            generator.writeString(VERSION);
+            generator.writeString(fragments.type().getValue());
+            generator.writeString(fragments.predicateType().getValue());
+            generator.writeString(buildType);
+            generator.writeString(fragments.serializedBuilder().getValue());
+            generator.writeString(fragments.buildLog().template());
+            generator.writeString(fragments.alignmentLog().template());
+            generator.writeObject(pncBuild);
+            generator.writeObject(pncBuildConfigRevision);
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new ApplicationException(
+                    "Fingerprint of the provenance of build with id '{}' could not be computed",
+                    pncBuild.getId(),
+                    e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Compute the fingerprint of a provenance signed with the {@code publicKey}, from the fingerprint of the
+     * provenance.
+     *
+     * @param fingerprint the fingerprint of the provenance
+     * @param publicKey the public key matching the signing key
+     * @return the hex-encoded fingerprint
+     */
+    public static String signed(String fingerprint, byte[] publicKey) {
+        MessageDigest digest = sha256();
+        digest.update(HexFormat.of().parseHex(fingerprint));
+        digest.update(publicKey);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private record Computed(BuildConfigurationRevision buildConfigRevision, ProvenanceFragments fragments,
+            String buildType, String fingerprint) {
+
+        boolean isFor(BuildConfigurationRevision buildConfigRevision, ProvenanceFragments fragments, String buildType) {
+            return this.buildConfigRevision == buildConfigRevision && this.fragments == fragments
+                    && this.buildType.equals(buildType);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ApplicationException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.utils;
+
+import java.io.IOException;
+
+import org.jboss.pnc.sentinel.provenance.model.BuildDefinition;
+import org.jboss.pnc.sentinel.provenance.model.Builder;
+import org.jboss.pnc.sentinel.provenance.model.Metadata;
+import org.jboss.pnc.sentinel.provenance.model.Predicate;
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+import org.jboss.pnc.sentinel.provenance.model.ResourceDescriptor;
+import org.jboss.pnc.sentinel.provenance.model.RunDetails;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * <p>
+ * Jackson module serializing the provenance model records with the hand-written, fixed property order writers of
+ * {@link ProvenanceWriter} instead of introspecting the records and their {@code @JsonProperty} annotations.
+ * </p>
+ *
+ * <p>
+ * The output is the same as the annotation driven one of an {@code ObjectMapper} sorting properties alphabetically,
+ * ordering map entries by keys and excluding {@code null} values, which is how {@code ObjectMapperProvider.json()} is
+ * configured.
+ * </p>
+ */
+public class ProvenanceModule extends SimpleModule {
+
+    public ProvenanceModule() {
+        super(ProvenanceModule.class.getSimpleName());
+
+        addSerializer(Provenance.class, new ModelSerializer<>(Provenance.class) {
+            @Override
+            void write(JsonGenerator generator, Provenance value) throws IOException {
+                BuildDefinition buildDefinition = value.predicate() == null ? null
+                        : value.predicate().buildDefinition();
+                ProvenanceWriter.writeProvenance(
+                        generator,
+                        value,
+                        ProvenanceWriter.iterator(value.subject()),
+                        buildDefinition == null ? null
+                                : ProvenanceWriter.iterator(buildDefinition.resolvedDependencies()),
+                        null);
+            }
+        });
+        addSerializer(Predicate.class, new ModelSerializer<>(Predicate.class) {
+            @Override
+            void write(JsonGenerator generator, Predicate value) throws IOException {
+                ProvenanceWriter.writePredicate(
+                        generator,
+                        value,
+                        value.buildDefinition() == null ? null
+                                : ProvenanceWriter.iterator(value.buildDefinition().resolvedDependencies()),
+                        null);
+            }
+        });
+        addSerializer(BuildDefinition.class, new ModelSerializer<>(BuildDefinition.class) {
+            @Override
+            void write(JsonGenerator generator, BuildDefinition value) throws IOException {
+                ProvenanceWriter.writeBuildDefinition(
+                        generator,
+                        value,
+                        ProvenanceWriter.iterator(value.resolvedDependencies()));
+            }
+        });
+        addSerializer(RunDetails.class, new ModelSerializer<>(RunDetails.class) {
+            @Override
+            void write(JsonGenerator generator, RunDetails value) throws IOException {
+                ProvenanceWriter.writeRunDetails(generator, value, null);
+            }
+        });
+        addSerializer(Builder.class, new ModelSerializer<>(Builder.class) {
+            @Override
+            void write(JsonGenerator generator, Builder value) throws IOException {
+                ProvenanceWriter.writeBuilder(generator, value);
+            }
+        });
+        addSerializer(Metadata.class, new ModelSerializer<>(Metadata.class) {
+            @Override
+            void write(JsonGenerator generator, Metadata value) throws IOException {
+                ProvenanceWriter.writeMetadata(generator, value);
+            }
+        });
+        addSerializer(ResourceDescriptor.class, new ModelSerializer<>(ResourceDescriptor.class) {
+            @Override
+            void write(JsonGenerator generator, ResourceDescriptor value) throws IOException {
+                ProvenanceWriter.writeDescriptor(generator, value);
+            }
+        });
+    }
+
+    private abstract static class ModelSerializer<T> extends StdSerializer<T> {
+
+        ModelSerializer(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            write(generator, value);
+        }
+
+        abstract void write(JsonGenerator generator, T value) throws IOException;
+    }
+}
@@ -19,20 +19,32 @@ package org.jboss.pnc.sentinel.provenance.utils;
 
 import static org.jboss.pnc.sentinel.provenance.utils.ProvenanceFields.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
 
 import org.jboss.pnc.dto.Artifact;
 import org.jboss.pnc.dto.Build;
 import org.jboss.pnc.dto.BuildConfigurationRevision;
+import org.jboss.pnc.sentinel.ArtifactProjection;
+import org.jboss.pnc.sentinel.PncBuildData;
+import org.jboss.pnc.sentinel.PncBuildRevision;
+import org.jboss.pnc.sentinel.PncService;
 import org.jboss.pnc.sentinel.enums.BuildSystem;
 import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfig.SlsaConfig.SpecConfig.ProvenanceSpec;
 import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfigProvider;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceFragments;
 import org.jboss.pnc.sentinel.provenance.model.BuildDefinition;
-import org.jboss.pnc.sentinel.provenance.model.Builder;
 import org.jboss.pnc.sentinel.provenance.model.Metadata;
 import org.jboss.pnc.sentinel.provenance.model.Predicate;
 import org.jboss.pnc.sentinel.provenance.model.Provenance;
@@ -45,21 +57,53 @@ public class ProvenanceUtils {
      * Convert a collection of artifacts into resource descriptors.
      */
     public static List<ResourceDescriptor> createArtifactsResourceDescriptors(Collection<Artifact> artifacts) {
-        return artifacts.stream()
-                .map(
-                        artifact -> ResourceDescriptor.builder()
-                                .name(artifact.getFilename())
-                                .digest(Map.of(ARTIFACT_SHA256, artifact.getSha256()))
-                                .annotations(
-                                        Map.of(
-                                                ARTIFACT_IDENTIFIER,
-                                                artifact.getIdentifier(),
-                                                ARTIFACT_PURL,
-                                                artifact.getPurl(),
-                                                ARTIFACT_URI,
-                                                artifact.getPublicUrl()))
-                                .build())
-                .toList();
+        return createArtifactsResourceDescriptors(artifacts.stream());
+    }
+
+    /**
+     * Convert a collection of artifacts into resource descriptors, splitting the work across the common fork/join pool
+     * when there are at least {@code parallelThreshold} artifacts. The descriptors are in the order of the artifacts
+     * either way.
+     *
+     * @param parallelThreshold the minimum number of artifacts converted in parallel, 0 to never convert in parallel
+     */
+    public static List<ResourceDescriptor> createArtifactsResourceDescriptors(
+            Collection<Artifact> artifacts,
+            int parallelThreshold) {
+        return createArtifactsResourceDescriptors(stream(artifacts, parallelThreshold));
+    }
+
+    /**
+     * Convert a stream of artifacts into resource descriptors, consuming the stream one artifact at a time.
+     */
+    public static List<ResourceDescriptor> createArtifactsResourceDescriptors(Stream<Artifact> artifacts) {
+        return artifacts.map(ProvenanceUtils::createArtifactResourceDescriptor).toList();
+    }
+
+    /**
+     * Convert an artifact into a resource descriptor.
+     */
+    public static ResourceDescriptor createArtifactResourceDescriptor(Artifact artifact) {
+        return createArtifactResourceDescriptor(ArtifactProjection.of(artifact));
+    }
+
+    /**
+     * Convert the projection of an artifact into a resource descriptor.
+     */
+    public static ResourceDescriptor createArtifactResourceDescriptor(ArtifactProjection artifact) {
+        return ResourceDescriptor.builder()
+                .name(artifact.filename())
+                .digest(Map.of(ARTIFACT_SHA256, artifact.sha256()))
+                .annotations(
+                        sorted(
+                                Map.of(
+                                        ARTIFACT_IDENTIFIER,
+                                        artifact.identifier(),
+                                        ARTIFACT_PURL,
+                                        artifact.purl(),
+                                        ARTIFACT_URI,
+                                        artifact.publicUrl())))
+                .build();
     }
 
     private static String getBuildSystemBuildType(BuildSystem buildSystem, ProvenanceConfigProvider config) {
@@ -99,9 +143,106 @@ public class ProvenanceUtils {
             Collection<Artifact> builtArtifacts,
             Collection<Artifact> resolvedArtifacts,
             ProvenanceConfigProvider config) {
+        int parallelThreshold = config.getConfig().descriptors().parallelThreshold();
+        return createFullPNCBuildProvenance(
+                pncBuild,
+                pncBuildConfigRevision,
+                stream(builtArtifacts, parallelThreshold),
+                stream(resolvedArtifacts, parallelThreshold),
+                config);
+    }
+
+    /**
+     * Create the provenance consuming the artifacts incrementally, e.g. from {@link PncService#streamBuiltArtifacts}
+     * and {@link PncService#streamDependencies}, so that the artifacts are never held in memory all together.
+     */
+    public static Provenance createFullPNCBuildProvenance(
+            Build pncBuild,
+            BuildConfigurationRevision pncBuildConfigRevision,
+            Stream<Artifact> builtArtifacts,
+            Stream<Artifact> resolvedArtifacts,
+            ProvenanceConfigProvider config) {
+        return createFullPNCBuildProvenanceFromProjections(
+                pncBuild,
+                pncBuildConfigRevision,
+                builtArtifacts.map(ArtifactProjection::of),
+                resolvedArtifacts.map(ArtifactProjection::of),
+                config);
+    }
+
+    /**
+     * Create the provenance from the projections of the artifacts, e.g. from
+     * {@link PncService#streamBuiltArtifactProjections} and {@link PncService#streamDependencyProjections}, which are
+     * decoded without binding the full artifact DTOs.
+     */
+    public static Provenance createFullPNCBuildProvenanceFromProjections(
+            Build pncBuild,
+            BuildConfigurationRevision pncBuildConfigRevision,
+            Stream<ArtifactProjection> builtArtifacts,
+            Stream<ArtifactProjection> resolvedArtifacts,
+            ProvenanceConfigProvider config) {
+
+        List<ResourceDescriptor> subject = builtArtifacts.map(ProvenanceUtils::createArtifactResourceDescriptor)
+                .toList();
+        List<ResourceDescriptor> resolvedDependencies = createResolvedDependencies(pncBuild, resolvedArtifacts)
+                .toList();
+
+        return assembleFullPNCBuildProvenance(pncBuild, pncBuildConfigRevision, subject, resolvedDependencies, config);
+    }
+
+    /**
+     * Write the provenance to the {@code out} stream while consuming the projections of the artifacts, so that neither
+     * the descriptors nor the serialized document are ever held in memory all together.
+     *
+     * @see ProvenanceWriter
+     */
+    public static void writeFullPNCBuildProvenance(
+            Build pncBuild,
+            BuildConfigurationRevision pncBuildConfigRevision,
+            Stream<ArtifactProjection> builtArtifacts,
+            Stream<ArtifactProjection> resolvedArtifacts,
+            ProvenanceConfigProvider config,
+            OutputStream out) throws IOException {
+
+        Provenance skeleton = assembleFullPNCBuildProvenance(pncBuild, pncBuildConfigRevision, null, null, config);
+        ProvenanceWriter.write(
+                skeleton,
+                builtArtifacts.map(ProvenanceUtils::createArtifactResourceDescriptor).iterator(),
+                createResolvedDependencies(pncBuild, resolvedArtifacts).iterator(),
+                config.getFragments(),
+                out);
+    }
+
+    /**
+     * Fetch the PNC inputs of the build and write its provenance to the {@code out} stream, decoding the artifacts page
+     * by page with {@link PncService#streamBuiltArtifactProjections} and
+     * {@link PncService#streamDependencyProjections}.
+     */
+    public static void writeFullPNCBuildProvenance(
+            PncService pncService,
+            String buildId,
+            ProvenanceConfigProvider config,
+            OutputStream out) throws IOException {
+
+        PncBuildRevision buildRevision = pncService.getBuildRevision(buildId);
+        try (Stream<ArtifactProjection> builtArtifacts = pncService.streamBuiltArtifactProjections(buildId);
+                Stream<ArtifactProjection> resolvedArtifacts = pncService.streamDependencyProjections(buildId)) {
+            writeFullPNCBuildProvenance(
+                    buildRevision.build(),
+                    buildRevision.buildConfigRevision(),
+                    builtArtifacts,
+                    resolvedArtifacts,
+                    config,
+                    out);
+        }
+    }
 
-        List<ResourceDescriptor> subject = createArtifactsResourceDescriptors(builtArtifacts);
-        List<ResourceDescriptor> resolvedDependencies = createResolvedDependencies(pncBuild, resolvedArtifacts);
+    private static Provenance assembleFullPNCBuildProvenance(
+            Build pncBuild,
+            BuildConfigurationRevision pncBuildConfigRevision,
+            List<ResourceDescriptor> subject,
+            List<ResourceDescriptor> resolvedDependencies,
+            ProvenanceConfigProvider config) {
 
         Map<String, Object> externalParameters = createExternalParameters(pncBuild, pncBuildConfigRevision);
         Map<String, Object> internalParameters = Map
@@ -120,33 +261,88 @@ public class ProvenanceUtils {
                 .finishedOn(pncBuild.getEndTime())
                 .build();
 
-        Builder builder = Builder.builder()
-                .id(BuildSystem.PNC.toName())
-                .version(config.getPncComponentVersions())
-                .build();
+        ProvenanceFragments fragments = config.getFragments();
 
         List<ResourceDescriptor> byproducts = createByproducts(pncBuild, config);
 
         RunDetails runDetails = RunDetails.builder()
-                .builderInfo(builder)
+                .builderInfo(fragments.builder())
                 .metadata(metadata)
                 .byproducts(byproducts)
                 .build();
 
         Predicate predicate = Predicate.builder().buildDefinition(buildDefinition).runDetails(runDetails).build();
 
-        return createProvenance(
-                config.getProvenanceSlsaSpecs(config.getConfig().slsa().spec().version()),
-                subject,
-                predicate);
+        return createProvenance(fragments.spec(), subject, predicate);
+    }
+
+    public static Provenance createFullPNCBuildProvenance(PncBuildData pncBuildData, ProvenanceConfigProvider config) {
+        return createFullPNCBuildProvenance(
+                pncBuildData.build(),
+                pncBuildData.buildConfigRevision(),
+                pncBuildData.builtArtifacts(),
+                pncBuildData.dependencies(),
+                config);
     }
 
-    private static List<ResourceDescriptor> createResolvedDependencies(
+    /**
+     * Fetch all the PNC inputs of the build concurrently and create the provenance as soon as the slowest request
+     * completes. The artifacts are fetched as {@link ArtifactProjection projections}, without binding the full artifact
+     * DTOs.
+     */
+    public static CompletableFuture<Provenance> createFullPNCBuildProvenanceAsync(
+            PncService pncService,
+            String buildId,
+            ProvenanceConfigProvider config) {
+        return createFullPNCBuildProvenanceAsync(
+                pncService,
+                buildId,
+                pncService.getBuildRevisionAsync(buildId),
+                config);
+    }
+
+    /**
+     * Variant of {@link #createFullPNCBuildProvenanceAsync(PncService, String, ProvenanceConfigProvider)} for a build
+     * and revision which are already fetched, e.g. to check the preconditions of a request before generating.
+     */
+    public static CompletableFuture<Provenance> createFullPNCBuildProvenanceAsync(
+            PncService pncService,
+            PncBuildRevision buildRevision,
+            ProvenanceConfigProvider config) {
+        String buildId = buildRevision.build().getId();
+        return createFullPNCBuildProvenanceAsync(
+                pncService,
+                buildId,
+                CompletableFuture.completedFuture(buildRevision),
+                config);
+    }
+
+    private static CompletableFuture<Provenance> createFullPNCBuildProvenanceAsync(
+            PncService pncService,
+            String buildId,
+            CompletableFuture<PncBuildRevision> buildRevision,
+            ProvenanceConfigProvider config) {
+        CompletableFuture<Collection<ArtifactProjection>> builtArtifacts = pncService
+                .getBuiltArtifactProjectionsAsync(buildId);
+        CompletableFuture<Collection<ArtifactProjection>> resolvedArtifacts = pncService
+                .getDependencyProjectionsAsync(buildId);
+
+        return CompletableFuture.allOf(buildRevision, builtArtifacts, resolvedArtifacts).thenApply(ignored -> {
+            int parallelThreshold = config.getConfig().descriptors().parallelThreshold();
+            return createFullPNCBuildProvenanceFromProjections(
+                    buildRevision.join().build(),
+                    buildRevision.join().buildConfigRevision(),
+                    stream(builtArtifacts.join(), parallelThreshold),
+                    stream(resolvedArtifacts.join(), parallelThreshold),
+                    config);
+        });
+    }
+
+    private static Stream<ResourceDescriptor> createResolvedDependencies(
             Build pncBuild,
-            Collection<Artifact> resolvedArtifacts) {
+            Stream<ArtifactProjection> resolvedArtifacts) {
 
         var deps = new ArrayList<ResourceDescriptor>();
-
         if (pncBuild.getScmBuildConfigRevision() != null) {
             deps.add(
                     ResourceDescriptor.builder()
@@ -172,42 +368,73 @@ public class ProvenanceUtils {
                                         + pncBuild.getEnvironment().getSystemImageId())
                         .build());
 
-        deps.addAll(createArtifactsResourceDescriptors(resolvedArtifacts));
-        return deps;
+        return Stream.concat(deps.stream(), resolvedArtifacts.map(ProvenanceUtils::createArtifactResourceDescriptor));
     }
 
     private static Map<String, Object> createExternalParameters(Build pncBuild, BuildConfigurationRevision rev) {
 
         // Merge build parameters and include extra flags
-        Map<String, Object> mergedParameters = new HashMap<>(rev.getParameters());
+        SortedMap<String, Object> mergedParameters = new TreeMap<>(rev.getParameters());
         mergedParameters.put(BUILD_DETAILS_BREW_PULL_ACTIVE, String.valueOf(rev.isBrewPullActive()));
 
         // Build details map with all relevant metadata
-        Map<String, Object> buildDetails = Map.of(
-                BUILD_DETAILS_TYPE,
-                rev.getBuildType().toString(),
-                BUILD_DETAILS_TEMPORARY,
-                String.valueOf(pncBuild.getTemporaryBuild()),
-                BUILD_DETAILS_SCRIPT,
-                rev.getBuildScript(),
-                BUILD_DETAILS_NAME,
-                rev.getName(),
-                BUILD_DETAILS_PARAMETERS,
-                mergedParameters);
-
-        return Map.of(
-                BUILD,
-                buildDetails,
-                SCM_REPOSITORY,
+        Map<String, Object> buildDetails = sorted(
+                Map.of(
+                        BUILD_DETAILS_TYPE,
+                        rev.getBuildType().toString(),
+                        BUILD_DETAILS_TEMPORARY,
+                        String.valueOf(pncBuild.getTemporaryBuild()),
+                        BUILD_DETAILS_SCRIPT,
+                        rev.getBuildScript(),
+                        BUILD_DETAILS_NAME,
+                        rev.getName(),
+                        BUILD_DETAILS_PARAMETERS,
+                        Collections.unmodifiableSortedMap(mergedParameters)));
+
+        return sorted(
                 Map.of(
-                        URI,
-                        pncBuild.getScmRepository().getExternalUrl(),
-                        REVISION,
-                        rev.getScmRevision(),
-                        PRE_BUILD_SYNC,
-                        String.valueOf(rev.getScmRepository().getPreBuildSyncEnabled())),
-                ENVIRONMENT,
-                Map.of(NAME, pncBuild.getEnvironment().getName()));
+                        BUILD,
+                        buildDetails,
+                        SCM_REPOSITORY,
+                        sorted(
+                                Map.of(
+                                        URI,
+                                        pncBuild.getScmRepository().getExternalUrl(),
+                                        REVISION,
+                                        rev.getScmRevision(),
+                                        PRE_BUILD_SYNC,
+                                        String.valueOf(rev.getScmRepository().getPreBuildSyncEnabled()))),
+                        ENVIRONMENT,
+                        Map.of(NAME, pncBuild.getEnvironment().getName())));
+    }
+
+    /**
+     * Stream the collection in parallel when it is big enough for the split to pay off, and there is more than one
+     * thread to split it across. Parallel streams keep the encounter order of the collection, so the output stays
+     * deterministic.
+     */
+    private static <T> Stream<T> stream(Collection<T> items, int parallelThreshold) {
+        if (parallelThreshold > 0 && items.size() >= parallelThreshold && parallelism() > 1) {
+            return items.parallelStream();
+        }
+        return items.stream();
+    }
+
+    /**
+     * The parallelism of the pool a parallel stream runs in: the fork/join pool of the caller, if any, else the common
+     * pool.
+     */
+    private static int parallelism() {
+        return ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * Copy the entries into an immutable map which is already in the order they are serialized in, so that neither
+     * {@link ProvenanceWriter} nor the {@code ObjectMapper} has to sort them again.
+     */
+    private static <V> SortedMap<String, V> sorted(Map<String, V> map) {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(map));
     }
 
     private static List<ResourceDescriptor> createByproducts(Build pncBuild, ProvenanceConfigProvider config) {
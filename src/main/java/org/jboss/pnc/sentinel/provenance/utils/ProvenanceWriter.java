@@ -0,0 +1,417 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.provenance.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceFragments;
+import org.jboss.pnc.sentinel.provenance.model.BuildDefinition;
+import org.jboss.pnc.sentinel.provenance.model.Builder;
+import org.jboss.pnc.sentinel.provenance.model.Metadata;
+import org.jboss.pnc.sentinel.provenance.model.Predicate;
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+import org.jboss.pnc.sentinel.provenance.model.ResourceDescriptor;
+import org.jboss.pnc.sentinel.provenance.model.RunDetails;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * <p>
+ * Writes the in-toto statement of a provenance straight to an {@link OutputStream} with a {@link JsonGenerator}.
+ * </p>
+ *
+ * <p>
+ * The output is canonical: no whitespace, the properties of the model and the keys of every map are written in
+ * ascending order and {@code null} values are omitted. It is byte for byte identical to what
+ * {@link ObjectMapperProvider#json()} produces, so it is safe to hash and sign, but the property order of the model is
+ * fixed here instead of being introspected and sorted, and maps are sorted only when they are not a naturally ordered
+ * {@link SortedMap} already.
+ * </p>
+ *
+ * <p>
+ * The {@code subject} and the {@code resolvedDependencies} can be pulled from iterators one descriptor at a time, so
+ * the memory needed does not grow with the number of artifacts. The parts which only depend on the configuration can be
+ * spliced in from {@link ProvenanceFragments}.
+ * </p>
+ */
+public class ProvenanceWriter {
+
+    private static final SerializableString ANNOTATIONS = new SerializedString("annotations");
+    private static final SerializableString BUILD_DEFINITION = new SerializedString("buildDefinition");
+    private static final SerializableString BUILD_TYPE = new SerializedString("buildType");
+    private static final SerializableString BUILDER = new SerializedString("builder");
+    private static final SerializableString BUILDER_DEPENDENCIES = new SerializedString("builderDependencies");
+    private static final SerializableString BYPRODUCTS = new SerializedString("byproducts");
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString DIGEST = new SerializedString("digest");
+    private static final SerializableString DOWNLOAD_LOCATION = new SerializedString("downloadLocation");
+    private static final SerializableString EXTERNAL_PARAMETERS = new SerializedString("externalParameters");
+    private static final SerializableString FINISHED_ON = new SerializedString("finishedOn");
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString INTERNAL_PARAMETERS = new SerializedString("internalParameters");
+    private static final SerializableString INVOCATION_ID = new SerializedString("invocationId");
+    private static final SerializableString MEDIA_TYPE = new SerializedString("mediaType");
+    private static final SerializableString METADATA = new SerializedString("metadata");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString PREDICATE = new SerializedString("predicate");
+    private static final SerializableString PREDICATE_TYPE = new SerializedString("predicateType");
+    private static final SerializableString RESOLVED_DEPENDENCIES = new SerializedString("resolvedDependencies");
+    private static final SerializableString RUN_DETAILS = new SerializedString("runDetails");
+    private static final SerializableString STARTED_ON = new SerializedString("startedOn");
+    private static final SerializableString SUBJECT = new SerializedString("subject");
+    private static final SerializableString TYPE = new SerializedString("_type");
+    private static final SerializableString URI = new SerializedString("uri");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    private static final Comparator<Map.Entry<?, ?>> BY_KEY = Comparator
+            .comparing(entry -> String.valueOf(entry.getKey()));
+
+    private ProvenanceWriter() {
+        // This is a utility class
+    }
+
+    /**
+     * Serialize a provenance into its canonical bytes, e.g. to sign them.
+     */
+    public static byte[] toBytes(Provenance provenance) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try {
+            write(provenance, out);
+        } catch (IOException e) {
+            // Cannot happen when writing to memory
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write a provenance whose descriptors are already in memory.
+     */
+    public static void write(Provenance provenance, OutputStream out) throws IOException {
+        BuildDefinition buildDefinition = provenance.predicate() == null ? null
+                : provenance.predicate().buildDefinition();
+        write(
+                provenance,
+                iterator(provenance.subject()),
+                buildDefinition == null ? null : iterator(buildDefinition.resolvedDependencies()),
+                out);
+    }
+
+    /**
+     * Write a provenance to a channel, e.g. a file, without buffering the whole document.
+     *
+     * @see #write(Provenance, Iterator, Iterator, OutputStream)
+     */
+    public static void write(
+            Provenance skeleton,
+            Iterator<ResourceDescriptor> subject,
+            Iterator<ResourceDescriptor> resolvedDependencies,
+            WritableByteChannel channel) throws IOException {
+        write(skeleton, subject, resolvedDependencies, null, channel);
+    }
+
+    /**
+     * Write a provenance to a channel, splicing in the pre-serialized {@code fragments}.
+     *
+     * @see #write(Provenance, Iterator, Iterator, ProvenanceFragments, OutputStream)
+     */
+    public static void write(
+            Provenance skeleton,
+            Iterator<ResourceDescriptor> subject,
+            Iterator<ResourceDescriptor> resolvedDependencies,
+            ProvenanceFragments fragments,
+            WritableByteChannel channel) throws IOException {
+        // The stream is not closed, the channel belongs to the caller
+        OutputStream out = Channels.newOutputStream(channel);
+        write(skeleton, subject, resolvedDependencies, fragments, out);
+        out.flush();
+    }
+
+    /**
+     * <p>
+     * Write a provenance whose {@code subject} and {@code resolvedDependencies} are provided by iterators rather than
+     * by the {@code skeleton}, which is expected to hold {@code null} in their place.
+     * </p>
+     *
+     * <p>
+     * The properties are written in ascending order, so the resolved dependencies are consumed before the subject. A
+     * {@code null} iterator omits the field.
+     * </p>
+     *
+     * @param skeleton the provenance without its descriptors
+     * @param subject the descriptors of the built artifacts
+     * @param resolvedDependencies the descriptors of the resolved dependencies
+     * @param out the stream to write to, which is flushed but not closed
+     * @throws IOException if the stream cannot be written to
+     */
+    public static void write(
+            Provenance skeleton,
+            Iterator<ResourceDescriptor> subject,
+            Iterator<ResourceDescriptor> resolvedDependencies,
+            OutputStream out) throws IOException {
+        write(skeleton, subject, resolvedDependencies, null, out);
+    }
+
+    /**
+     * <p>
+     * Write a provenance like {@link #write(Provenance, Iterator, Iterator, OutputStream)} does, splicing in the
+     * pre-serialized {@code fragments} of the configuration instead of serializing those parts again.
+     * </p>
+     *
+     * <p>
+     * The builder fragment is used when the run details hold the very {@link ProvenanceFragments#builder()} instance,
+     * the header fragments when the skeleton has the same {@code _type} and {@code predicateType} as the spec.
+     * </p>
+     *
+     * @param fragments the fragments of the configuration, or {@code null} to serialize everything
+     */
+    public static void write(
+            Provenance skeleton,
+            Iterator<ResourceDescriptor> subject,
+            Iterator<ResourceDescriptor> resolvedDependencies,
+            ProvenanceFragments fragments,
+            OutputStream out) throws IOException {
+
+        try (JsonGenerator generator = ObjectMapperProvider.json()
+                .getFactory()
+                .createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            writeProvenance(generator, skeleton, subject, resolvedDependencies, fragments);
+        }
+    }
+
+    static void writeProvenance(
+            JsonGenerator generator,
+            Provenance skeleton,
+            Iterator<ResourceDescriptor> subject,
+            Iterator<ResourceDescriptor> resolvedDependencies,
+            ProvenanceFragments fragments) throws IOException {
+
+        generator.writeStartObject();
+        writeField(generator, TYPE, skeleton.type(), fragments == null ? null : fragments.type());
+        if (skeleton.predicate() != null) {
+            generator.writeFieldName(PREDICATE);
+            writePredicate(generator, skeleton.predicate(), resolvedDependencies, fragments);
+        }
+        writeField(
+                generator,
+                PREDICATE_TYPE,
+                skeleton.predicateType(),
+                fragments == null ? null : fragments.predicateType());
+        writeDescriptors(generator, SUBJECT, subject);
+        generator.writeEndObject();
+    }
+
+    static void writePredicate(
+            JsonGenerator generator,
+            Predicate predicate,
+            Iterator<ResourceDescriptor> resolvedDependencies,
+            ProvenanceFragments fragments) throws IOException {
+
+        generator.writeStartObject();
+        if (predicate.buildDefinition() != null) {
+            generator.writeFieldName(BUILD_DEFINITION);
+            writeBuildDefinition(generator, predicate.buildDefinition(), resolvedDependencies);
+        }
+        if (predicate.runDetails() != null) {
+            generator.writeFieldName(RUN_DETAILS);
+            writeRunDetails(generator, predicate.runDetails(), fragments);
+        }
+        generator.writeEndObject();
+    }
+
+    static void writeBuildDefinition(
+            JsonGenerator generator,
+            BuildDefinition buildDefinition,
+            Iterator<ResourceDescriptor> resolvedDependencies) throws IOException {
+
+        generator.writeStartObject();
+        writeField(generator, BUILD_TYPE, buildDefinition.buildType());
+        writeMap(generator, EXTERNAL_PARAMETERS, buildDefinition.externalParameters());
+        writeMap(generator, INTERNAL_PARAMETERS, buildDefinition.internalParameters());
+        writeDescriptors(generator, RESOLVED_DEPENDENCIES, resolvedDependencies);
+        generator.writeEndObject();
+    }
+
+    static void writeRunDetails(JsonGenerator generator, RunDetails runDetails, ProvenanceFragments fragments)
+            throws IOException {
+        generator.writeStartObject();
+        Builder builder = runDetails.builderInfo();
+        if (builder != null) {
+            generator.writeFieldName(BUILDER);
+            if (fragments != null && builder == fragments.builder()) {
+                generator.writeRawValue(fragments.serializedBuilder());
+            } else {
+                writeBuilder(generator, builder);
+            }
+        }
+        writeDescriptors(generator, BYPRODUCTS, iterator(runDetails.byproducts()));
+        if (runDetails.metadata() != null) {
+            generator.writeFieldName(METADATA);
+            writeMetadata(generator, runDetails.metadata());
+        }
+        generator.writeEndObject();
+    }
+
+    static void writeBuilder(JsonGenerator generator, Builder builder) throws IOException {
+        generator.writeStartObject();
+        writeDescriptors(generator, BUILDER_DEPENDENCIES, iterator(builder.builderDependencies()));
+        writeField(generator, ID, builder.id());
+        writeMap(generator, VERSION, builder.version());
+        generator.writeEndObject();
+    }
+
+    static void writeMetadata(JsonGenerator generator, Metadata metadata) throws IOException {
+        generator.writeStartObject();
+        writeInstant(generator, FINISHED_ON, metadata.finishedOn());
+        writeField(generator, INVOCATION_ID, metadata.invocationId());
+        writeInstant(generator, STARTED_ON, metadata.startedOn());
+        generator.writeEndObject();
+    }
+
+    private static void writeDescriptors(
+            JsonGenerator generator,
+            SerializableString fieldName,
+            Iterator<ResourceDescriptor> descriptors) throws IOException {
+        if (descriptors == null) {
+            return;
+        }
+
+        generator.writeFieldName(fieldName);
+        generator.writeStartArray();
+        while (descriptors.hasNext()) {
+            writeDescriptor(generator, descriptors.next());
+        }
+        generator.writeEndArray();
+    }
+
+    static void writeDescriptor(JsonGenerator generator, ResourceDescriptor descriptor) throws IOException {
+        generator.writeStartObject();
+        writeMap(generator, ANNOTATIONS, descriptor.annotations());
+        writeField(generator, CONTENT, descriptor.content());
+        writeMap(generator, DIGEST, descriptor.digest());
+        writeField(generator, DOWNLOAD_LOCATION, descriptor.downloadLocation());
+        writeField(generator, MEDIA_TYPE, descriptor.mediaType());
+        writeField(generator, NAME, descriptor.name());
+        writeField(generator, URI, descriptor.uri());
+        generator.writeEndObject();
+    }
+
+    private static void writeField(JsonGenerator generator, SerializableString fieldName, String value)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(fieldName);
+            generator.writeString(value);
+        }
+    }
+
+    private static void writeField(
+            JsonGenerator generator,
+            SerializableString fieldName,
+            String value,
+            SerializableString serializedValue) throws IOException {
+        if (serializedValue != null && serializedValue.getValue().equals(value)) {
+            generator.writeFieldName(fieldName);
+            generator.writeString(serializedValue);
+        } else {
+            writeField(generator, fieldName, value);
+        }
+    }
+
+    private static void writeInstant(JsonGenerator generator, SerializableString fieldName, Instant value)
+            throws IOException {
+        if (value != null) {
+            generator.writeFieldName(fieldName);
+            // Same ISO-8601 representation as the JavaTimeModule without timestamps
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static void writeMap(JsonGenerator generator, SerializableString fieldName, Map<String, ?> map)
+            throws IOException {
+        if (map != null) {
+            generator.writeFieldName(fieldName);
+            writeMap(generator, map);
+        }
+    }
+
+    private static void writeMap(JsonGenerator generator, Map<?, ?> map) throws IOException {
+        generator.writeStartObject();
+        if (map.size() == 1 || (map instanceof SortedMap<?, ?> sorted && sorted.comparator() == null)) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeEntry(generator, String.valueOf(entry.getKey()), entry.getValue());
+            }
+        } else {
+            Map.Entry<?, ?>[] entries = map.entrySet().toArray(new Map.Entry[0]);
+            Arrays.sort(entries, BY_KEY);
+            for (Map.Entry<?, ?> entry : entries) {
+                writeEntry(generator, String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeEntry(JsonGenerator generator, String key, Object value) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(key);
+            writeValue(generator, value);
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof String string) {
+            generator.writeString(string);
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(generator, map);
+        } else if (value instanceof Collection<?> collection) {
+            generator.writeStartArray();
+            for (Object element : collection) {
+                if (element == null) {
+                    generator.writeNull();
+                } else {
+                    writeValue(generator, element);
+                }
+            }
+            generator.writeEndArray();
+        } else {
+            // Anything else is rare enough to leave to the ObjectMapper
+            generator.writeObject(value);
+        }
+    }
+
+    static <T> Iterator<T> iterator(List<T> list) {
+        return list == null ? null : list.iterator();
+    }
+}
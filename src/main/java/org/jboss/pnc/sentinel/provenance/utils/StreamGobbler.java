@@ -1,55 +0,0 @@
-/*
- * JBoss, Home of Professional Open Source.
- * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
- * as indicated by the @author tags.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.jboss.pnc.sentinel.provenance.utils;
-
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
-public class StreamGobbler extends Thread {
-    private final InputStream is;
-    private final String name;
-    final Path capturedFile;
-
-    StreamGobbler(InputStream is, String name) throws IOException {
-        this.is = is;
-        this.name = name;
-        this.capturedFile = Files.createTempFile(name, ".log");
-    }
-
-    @Override
-    public void run() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is));
-                BufferedWriter writer = Files.newBufferedWriter(capturedFile)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                writer.write(line);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            log.error("Exception while draining the ouput log!", e);
-        }
-    }
-}
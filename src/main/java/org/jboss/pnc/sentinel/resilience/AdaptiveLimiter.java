@@ -0,0 +1,274 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.resilience;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.jboss.pnc.sentinel.PncServiceConfig.LimiterConfig;
+import org.jboss.pnc.sentinel.errors.ClientException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Limits the number of concurrent calls to a remote service, adapting the limit to the service capacity.
+ * </p>
+ *
+ * <p>
+ * The limit follows an additive increase, multiplicative decrease scheme driven by latency, in the spirit of TCP Vegas:
+ * the lowest latency observed recently for an operation is taken as its latency on the unloaded service. A call which
+ * fails or whose latency exceeds it by the configured tolerance is a sign of queueing on the service side, and
+ * decreases the limit by the backoff ratio. A fast successful call increases the limit by {@code 1 / limit}, i.e.
+ * roughly by one per limit worth of calls, as long as the limit is actually used. The unloaded latencies are sampled
+ * again periodically so that the limiter follows lasting changes. Operations have very different latencies, e.g.
+ * fetching a build versus a page of its dependencies, hence they are tracked separately while sharing the limit. Failed
+ * calls, which may fail fast, do not lower the unloaded latency.
+ * </p>
+ *
+ * <p>
+ * Callers in excess of the limit wait, in arrival order, for a permit up to the queue timeout. Optional calls, e.g.
+ * hedged requests, {@link #tryAcquire(String) try} to take a permit instead, and are not sent when none is free.
+ * </p>
+ */
+@Slf4j
+public class AdaptiveLimiter {
+
+    private static final int MIN_LATENCY_RESET_INTERVAL = 1000;
+
+    // Latency differences below it are noise rather than queueing
+    private static final long LATENCY_NOISE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double latencyTolerance;
+
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private final Condition permitReleased = lock.newCondition();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private double limit;
+
+    private int inFlight;
+
+    private int queued;
+
+    private final Map<String, MinLatency> minLatencies = new HashMap<>();
+
+    public AdaptiveLimiter(LimiterConfig config) {
+        this(config, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxConcurrency caps the configured maximum limit, e.g. to the size of the connection pool the calls use
+     */
+    public AdaptiveLimiter(LimiterConfig config, int maxConcurrency) {
+        this.minLimit = config.minLimit();
+        this.maxLimit = Math.max(minLimit, Math.min(config.maxLimit(), maxConcurrency));
+        this.limit = Math.max(minLimit, Math.min(maxLimit, config.initialLimit()));
+        this.backoffRatio = config.backoffRatio();
+        this.latencyTolerance = config.latencyTolerance();
+        this.queueTimeoutNanos = config.queueTimeout().toNanos();
+    }
+
+    /**
+     * Execute the blocking {@code call} once a permit is available.
+     *
+     * @param operation identifies the kind of call, whose latencies are compared
+     * @param call the call to execute
+     * @return the result of the call
+     * @throws ClientException when no permit became available within the queue timeout
+     */
+    public <T> T execute(String operation, Supplier<T> call) {
+        int inFlightAtStart = acquire();
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            release(operation, System.nanoTime() - start, success, inFlightAtStart);
+        }
+    }
+
+    /**
+     * Take a permit for an optional call without waiting. No permit is taken ahead of the callers already waiting.
+     *
+     * @param operation identifies the kind of call, whose latencies are compared
+     * @return the permit to release once the call completes, or {@code null} when none is free
+     */
+    public Permit tryAcquire(String operation) {
+        lock.lock();
+        try {
+            if (queued > 0 || inFlight >= (int) limit) {
+                return null;
+            }
+            return new Permit(operation, ++inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LimiterStats getStats() {
+        lock.lock();
+        try {
+            return new LimiterStats((int) limit, inFlight, queued, rejected.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of calls in flight, including the acquiring one
+     */
+    private int acquire() {
+        lock.lock();
+        try {
+            long remaining = queueTimeoutNanos;
+            queued++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        throw new ClientException(
+                                "No permit to call PNC became available within {}, {} calls are in flight",
+                                Duration.ofNanos(queueTimeoutNanos),
+                                inFlight);
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ClientException("Interrupted while waiting for a permit to call PNC");
+            } finally {
+                queued--;
+            }
+            return ++inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(String operation, long latencyNanos, boolean success, int inFlightAtStart) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            MinLatency minLatency = minLatencies.computeIfAbsent(operation, ignored -> new MinLatency());
+
+            double previous = limit;
+            if (!success || latencyNanos > minLatency.update(latencyNanos) * latencyTolerance + LATENCY_NOISE_NANOS) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightAtStart * 2 >= (int) limit) {
+                // Only grow when the limit is actually used, not when the callers are the bottleneck
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            if ((int) limit != (int) previous) {
+                log.debug("PNC concurrency limit changed from {} to {}", (int) previous, (int) limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A permit taken by {@link #tryAcquire(String)}, released at most once.
+     */
+    public final class Permit {
+
+        private final String operation;
+
+        private final int inFlightAtStart;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String operation, int inFlightAtStart) {
+            this.operation = operation;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Release the permit of a completed call, adapting the limit to its outcome and latency.
+         */
+        public void release(boolean success) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.release(operation, System.nanoTime() - start, success, inFlightAtStart);
+            }
+        }
+
+        /**
+         * Release the permit of a call which was cancelled, e.g. a hedged request which lost, without adapting the
+         * limit: its latency says nothing about PNC.
+         */
+        public void cancel() {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.cancel();
+            }
+        }
+    }
+
+    /**
+     * The lowest latency of an operation, reset every {@value #MIN_LATENCY_RESET_INTERVAL} calls.
+     */
+    private static class MinLatency {
+
+        private long nanos = Long.MAX_VALUE;
+
+        private int samples;
+
+        long update(long latencyNanos) {
+            if (++samples % MIN_LATENCY_RESET_INTERVAL == 0) {
+                nanos = latencyNanos;
+            } else {
+                nanos = Math.min(nanos, latencyNanos);
+            }
+            return nanos;
+        }
+    }
+}
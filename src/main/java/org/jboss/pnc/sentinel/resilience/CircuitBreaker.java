@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.resilience;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * Stops calling an unhealthy service for a while to fail fast instead of waiting for errors.
+ * </p>
+ *
+ * <p>
+ * The breaker opens when the ratio of failures among the last {@code requestVolumeThreshold} calls reaches the
+ * {@code failureRatio}. Once {@code delay} elapsed a single trial call is let through: the breaker closes again if it
+ * succeeds, and stays open for another {@code delay} otherwise.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRatio;
+
+    private final long delayNanos;
+
+    // Outcomes of the last calls, true for failures
+    private final boolean[] window;
+
+    private int count;
+
+    private int next;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private boolean trialInFlight;
+
+    public CircuitBreaker(double failureRatio, int requestVolumeThreshold, Duration delay) {
+        this.failureRatio = failureRatio;
+        this.window = new boolean[requestVolumeThreshold];
+        this.delayNanos = delay.toNanos();
+    }
+
+    /**
+     * @return whether a call may be attempted, in which case its outcome must be reported
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < delayNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && count == window.length && failures >= failureRatio * count) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (count == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        count = 0;
+        next = 0;
+        failures = 0;
+    }
+}
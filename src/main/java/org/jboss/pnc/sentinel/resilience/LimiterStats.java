@@ -0,0 +1,29 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.resilience;
+
+/**
+ * State of an {@link AdaptiveLimiter}.
+ *
+ * @param limit the current concurrency limit
+ * @param inFlight the number of calls in flight
+ * @param queued the number of callers waiting for a permit
+ * @param rejected the number of callers which gave up waiting for a permit
+ */
+public record LimiterStats(int limit, int inFlight, int queued, long rejected) {
+}
@@ -0,0 +1,33 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.resilience;
+
+/**
+ * Counters of a {@link ResilientCall}.
+ *
+ * @param calls the number of calls
+ * @param failures the number of calls which failed
+ * @param rejected the number of calls rejected because the circuit breaker was open
+ * @param hedgesFired the number of duplicate requests sent because the first one was slow
+ * @param hedgesWon the number of duplicate requests which responded first
+ * @param hedgesSkipped the number of duplicate requests not sent because the concurrency limit was reached
+ * @param circuitState the current state of the circuit breaker, {@code null} when disabled
+ */
+public record ResilienceStats(long calls, long failures, long rejected, long hedgesFired, long hedgesWon,
+        long hedgesSkipped, CircuitBreaker.State circuitState) {
+}
@@ -0,0 +1,313 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.jboss.pnc.sentinel.PncServiceConfig.CallConfig;
+import org.jboss.pnc.sentinel.PncServiceConfig.CircuitBreakerConfig;
+import org.jboss.pnc.sentinel.PncServiceConfig.HedgeConfig;
+import org.jboss.pnc.sentinel.errors.ClientException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Guards the calls of a single remote operation with an optional circuit breaker and optional hedged requests.
+ * </p>
+ *
+ * <p>
+ * When hedging is enabled the call is executed on the {@code executor}, and a duplicate is started when it did not
+ * complete within the hedge delay: the percentile of the recent call latencies, or the configured delay until enough of
+ * them were observed. The first successful response wins, the thread of the other call is interrupted: a request
+ * already sent to PNC still completes, but its response is discarded. A call failing before the hedge delay is not
+ * retried.
+ * </p>
+ *
+ * <p>
+ * The duplicate is a PNC request of its own, so it takes its own permit of the {@link AdaptiveLimiter}, if any. When
+ * PNC is already at the concurrency limit the duplicate is not sent, since it would only add to the load which makes
+ * the call slow, and the call waits for the first request.
+ * </p>
+ */
+@Slf4j
+public class ResilientCall {
+
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final String name;
+
+    private final Executor executor;
+
+    private final HedgeConfig hedgeConfig;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final AdaptiveLimiter limiter;
+
+    private final LatencyTracker latencies = new LatencyTracker(LATENCY_SAMPLES);
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder hedgesFired = new LongAdder();
+
+    private final LongAdder hedgesWon = new LongAdder();
+
+    private final LongAdder hedgesSkipped = new LongAdder();
+
+    public ResilientCall(String name, CallConfig config, Executor executor) {
+        this(name, config, executor, null);
+    }
+
+    /**
+     * @param limiter the limiter of the calls, which the hedged requests take a permit of, {@code null} when disabled
+     */
+    public ResilientCall(String name, CallConfig config, Executor executor, AdaptiveLimiter limiter) {
+        this.name = name;
+        this.executor = executor;
+        this.hedgeConfig = config.hedge();
+        this.limiter = limiter;
+
+        CircuitBreakerConfig breakerConfig = config.circuitBreaker();
+        this.circuitBreaker = breakerConfig.enabled()
+                ? new CircuitBreaker(
+                        breakerConfig.failureRatio(),
+                        breakerConfig.requestVolumeThreshold(),
+                        breakerConfig.delay())
+                : null;
+    }
+
+    /**
+     * Execute the blocking {@code call}.
+     *
+     * @param call the call to execute
+     * @return the result of the call
+     * @throws ClientException when the circuit breaker is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            rejected.increment();
+            throw new ClientException("PNC call '{}' rejected because PNC is failing, circuit breaker is open", name);
+        }
+
+        calls.increment();
+        long start = System.nanoTime();
+        try {
+            T result = hedgeConfig.enabled() ? executeHedged(call) : call.get();
+            latencies.record(Duration.ofNanos(System.nanoTime() - start));
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess();
+            }
+            return result;
+        } catch (RuntimeException | Error ex) {
+            failures.increment();
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure();
+            }
+            throw ex;
+        }
+    }
+
+    public ResilienceStats getStats() {
+        return new ResilienceStats(
+                calls.sum(),
+                failures.sum(),
+                rejected.sum(),
+                hedgesFired.sum(),
+                hedgesWon.sum(),
+                hedgesSkipped.sum(),
+                circuitBreaker == null ? null : circuitBreaker.getState());
+    }
+
+    /**
+     * @return the time after which a duplicate request is sent
+     */
+    Duration hedgeDelay() {
+        if (latencies.count() < hedgeConfig.minSamples()) {
+            return hedgeConfig.delay();
+        }
+        Duration percentile = latencies.percentile(hedgeConfig.percentile());
+        return percentile.compareTo(hedgeConfig.minDelay()) < 0 ? hedgeConfig.minDelay() : percentile;
+    }
+
+    private <T> T executeHedged(Supplier<T> call) {
+        Attempt<T> primary = start(call);
+
+        try {
+            return await(primary, hedgeDelay().toNanos());
+        } catch (TimeoutException ex) {
+            // Slow, send a duplicate request below
+        }
+
+        AdaptiveLimiter.Permit permit = limiter == null ? null : limiter.tryAcquire(name);
+        if (limiter != null && permit == null) {
+            log.debug("PNC call '{}' is slow, but no permit is free to send a hedged request", name);
+            hedgesSkipped.increment();
+            try {
+                return await(primary, Long.MAX_VALUE);
+            } catch (TimeoutException ex) {
+                // Cannot happen without a deadline
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        log.debug("PNC call '{}' is slow, sending a hedged request", name);
+        hedgesFired.increment();
+        Attempt<T> hedge = start(call);
+        if (permit != null) {
+            hedge.result().whenComplete((result, error) -> {
+                if (error instanceof CancellationException) {
+                    permit.cancel();
+                } else {
+                    permit.release(error == null);
+                }
+            });
+        }
+
+        CompletableFuture<Response<T>> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        primary.result()
+                .whenComplete(
+                        (result, error) -> complete(
+                                winner,
+                                new Response<>(result, false),
+                                error,
+                                failed,
+                                primary.result()));
+        hedge.result()
+                .whenComplete(
+                        (result, error) -> complete(
+                                winner,
+                                new Response<>(result, true),
+                                error,
+                                failed,
+                                primary.result()));
+
+        try {
+            Response<T> response = winner.get();
+            if (response.hedged()) {
+                hedgesWon.increment();
+            }
+            return response.result();
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for PNC call '{}'", name);
+        } finally {
+            // Stop the slower call, its response is discarded
+            primary.cancel();
+            hedge.cancel();
+        }
+    }
+
+    /**
+     * Wait for the {@code attempt} up to the timeout, interrupting it when the waiting thread is interrupted.
+     */
+    private <T> T await(Attempt<T> attempt, long timeoutNanos) throws TimeoutException {
+        try {
+            return attempt.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            attempt.cancel();
+            throw new ClientException("Interrupted while waiting for PNC call '{}'", name);
+        }
+    }
+
+    /**
+     * Run the {@code call} on the executor, as a task which can be interrupted.
+     */
+    private <T> Attempt<T> start(Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(call.get());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        }, null);
+        executor.execute(task);
+        return new Attempt<>(result, task);
+    }
+
+    /**
+     * The first successful response wins, the failure of the primary call is reported when both fail.
+     */
+    private static <T> void complete(
+            CompletableFuture<Response<T>> winner,
+            Response<T> response,
+            Throwable error,
+            AtomicInteger failed,
+            CompletableFuture<T> primary) {
+        if (error == null) {
+            winner.complete(response);
+        } else if (failed.incrementAndGet() == 2) {
+            winner.completeExceptionally(primary.handle((result, primaryError) -> primaryError).join());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error err) {
+            throw err;
+        }
+        return new ClientException("PNC call failed: {}", cause.getMessage());
+    }
+
+    private record Response<T>(T result, boolean hedged) {
+    }
+
+    /**
+     * A started call: its pending {@code result}, and the {@code task} running it.
+     */
+    private record Attempt<T>(CompletableFuture<T> result, Future<?> task) {
+
+        /**
+         * Interrupt the call if still running, a completed call is left untouched.
+         */
+        void cancel() {
+            task.cancel(true);
+            result.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.rest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.smallrye.mutiny.subscription.MultiEmitter;
+
+/**
+ * <p>
+ * An {@link OutputStream} emitting what is written to it as chunks of at most {@code chunkSize} bytes to a
+ * {@link MultiEmitter}, e.g. the body of a streamed HTTP response.
+ * </p>
+ *
+ * <p>
+ * A chunk is only emitted once the subscriber requested it, so a writer faster than the client waits instead of
+ * buffering the whole document. The writer is therefore expected to run on a worker thread. Writing fails as soon as
+ * the subscriber cancels, e.g. because the client went away, or when the subscriber requests nothing for the
+ * {@code writeTimeout}, e.g. because the client stalled.
+ * </p>
+ */
+class ChunkedEmitterOutputStream extends OutputStream {
+
+    private final MultiEmitter<? super byte[]> emitter;
+
+    private final byte[] buffer;
+
+    private final long writeTimeoutNanos;
+
+    private int count;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition demand = lock.newCondition();
+
+    ChunkedEmitterOutputStream(MultiEmitter<? super byte[]> emitter, int chunkSize, Duration writeTimeout) {
+        this.emitter = emitter;
+        this.buffer = new byte[chunkSize];
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        emitter.onRequest(requested -> signal());
+        emitter.onTermination(this::signal);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            emitChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == buffer.length) {
+                emitChunk();
+            }
+            int copied = Math.min(length, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, copied);
+            count += copied;
+            offset += copied;
+            length -= copied;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            emitChunk();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void emitChunk() throws IOException {
+        awaitDemand();
+        emitter.emit(Arrays.copyOf(buffer, count));
+        count = 0;
+    }
+
+    private void awaitDemand() throws IOException {
+        long deadline = System.nanoTime() + writeTimeoutNanos;
+        lock.lock();
+        try {
+            while (emitter.requested() == 0 && !emitter.isCancelled()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException(
+                            "The subscriber requested nothing within " + Duration.ofNanos(writeTimeoutNanos));
+                }
+                // Also wake up from time to time in case a signal is missed
+                demand.awaitNanos(Math.min(remaining, TimeUnit.SECONDS.toNanos(1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the subscriber");
+        } finally {
+            lock.unlock();
+        }
+
+        if (emitter.isCancelled()) {
+            throw new IOException("The subscriber cancelled the stream");
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            demand.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
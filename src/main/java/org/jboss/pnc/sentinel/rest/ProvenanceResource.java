@@ -0,0 +1,312 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.jboss.pnc.sentinel.PncBuildRevision;
+import org.jboss.pnc.sentinel.PncService;
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.errors.NotFoundException;
+import org.jboss.pnc.sentinel.provenance.ProvenanceService;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfigProvider;
+import org.jboss.pnc.sentinel.provenance.config.SigningConfig;
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceFingerprint;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceWriter;
+import org.jboss.pnc.sentinel.signing.BatchSignature;
+import org.jboss.pnc.sentinel.signing.BatchSigner;
+import org.jboss.pnc.sentinel.signing.BlobSigner;
+import org.jboss.resteasy.reactive.RestMulti;
+import org.jboss.resteasy.reactive.RestPath;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Serves the provenances of the PNC builds.
+ * </p>
+ *
+ * <p>
+ * The endpoints are non-blocking: the PNC calls, the serialization and the signing run on the worker pool, never on the
+ * event loop. The provenance is streamed in chunks as it is serialized, so that the serialized document is never held
+ * in memory as a whole.
+ * </p>
+ *
+ * <p>
+ * The provenances are generated by the {@link ProvenanceService}, so that concurrent requests for the provenance of the
+ * same build, whatever the endpoint or batch, share a single generation.
+ * </p>
+ */
+@Path("/provenances")
+@Slf4j
+public class ProvenanceResource {
+
+    /**
+     * The size of the chunks of the streamed provenances.
+     */
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * How long a streamed provenance waits for the client to request the next chunk before failing, so that a stalled
+     * client does not hold a worker thread forever.
+     */
+    static final Duration WRITE_TIMEOUT = Duration.ofSeconds(60);
+
+    static final String BATCH_ETAG_SUFFIX = "-batch";
+
+    @Inject
+    PncService pncService;
+
+    @Inject
+    ProvenanceService provenanceService;
+
+    @Inject
+    ProvenanceConfigProvider config;
+
+    @Inject
+    SigningConfig signingConfig;
+
+    @Inject
+    BlobSigner signer;
+
+    @Inject
+    BatchSigner batchSigner;
+
+    private volatile byte[] publicKey;
+
+    /**
+     * <p>
+     * Stream the provenance of the PNC build.
+     * </p>
+     *
+     * <p>
+     * The provenance of a finished build carries its {@link ProvenanceFingerprint} as a strong ETag. A request whose
+     * {@code If-None-Match} matches it is answered with 304 right away, without generating the provenance again.
+     * </p>
+     *
+     * <p>
+     * The method runs on a worker thread because the headers of the streamed response are set before the stream starts,
+     * and they depend on the build and revision, fetched from PNC unless cached. The provenance itself is then written
+     * on the worker pool as the client consumes it, once generated.
+     * </p>
+     *
+     * @param buildId the PNC build identifier
+     * @param request the request, for its preconditions
+     * @return the provenance, in chunks
+     */
+    @GET
+    @Path("/{buildId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Blocking
+    public RestMulti<byte[]> getProvenance(@RestPath String buildId, @Context Request request) {
+        PncBuildRevision buildRevision = pncService.getBuildRevision(buildId);
+        Optional<EntityTag> etag = ProvenanceFingerprint
+                .of(buildRevision.build(), buildRevision.buildConfigRevision(), config)
+                .map(EntityTag::new);
+        etag.ifPresent(tag -> checkNotModified(request, tag));
+
+        RestMulti.SyncRestMulti.Builder<byte[]> response = RestMulti.fromMultiData(stream(buildId, buildRevision))
+                .encodeAsJsonArray(false);
+        etag.ifPresent(tag -> response.header(HttpHeaders.ETAG, tag.toString()));
+        return response.build();
+    }
+
+    /**
+     * <p>
+     * Sign the provenance of the PNC build with the configured {@link BlobSigner}.
+     * </p>
+     *
+     * <p>
+     * The bundle of a finished build carries a weak ETag, derived from the {@link ProvenanceFingerprint} and the public
+     * key: the signature differs from one signing to the next, but the signed provenance is the same. A request whose
+     * {@code If-None-Match} matches it is answered with 304 without signing again.
+     * </p>
+     *
+     * <p>
+     * When batch signing is enabled, the provenance is signed by the {@link BatchSigner} together with the others
+     * requested at the same time, and the bundle holds the signature of the batch and the inclusion proof of the
+     * provenance instead.
+     * </p>
+     *
+     * @param buildId the PNC build identifier
+     * @param request the request, for its preconditions
+     * @return the Cosign bundle of the signed provenance, or its {@link BatchSignature} bundle
+     */
+    @GET
+    @Path("/{buildId}/bundle")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getSignedProvenance(@RestPath String buildId, @Context Request request) {
+        if (signingConfig.privateKey().isEmpty() || signingConfig.publicKey().isEmpty()) {
+            throw new WebApplicationException("Signing keys are not configured", Response.Status.NOT_IMPLEMENTED);
+        }
+        boolean batch = signingConfig.batch().enabled();
+
+        return Uni.createFrom()
+                .item(() -> pncService.getBuildRevision(buildId))
+                .onItem()
+                .transformToUni(buildRevision -> {
+                    // The bundles signed in batches are a different representation of the signed provenance
+                    Optional<EntityTag> etag = ProvenanceFingerprint
+                            .of(buildRevision.build(), buildRevision.buildConfigRevision(), config)
+                            .map(fingerprint -> ProvenanceFingerprint.signed(fingerprint, publicKey()))
+                            .map(
+                                    fingerprint -> new EntityTag(
+                                            batch ? fingerprint + BATCH_ETAG_SUFFIX : fingerprint,
+                                            true));
+                    etag.ifPresent(tag -> checkNotModified(request, tag));
+
+                    Uni<String> bundle = generate(buildRevision).onItem()
+                            .transformToUni(
+                                    provenance -> batch ? signInBatch(buildId, provenance) : sign(buildId, provenance));
+                    return bundle.map(json -> Response.ok(json).tag(etag.orElse(null)).build());
+                })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Answer with 404 when the build or its revision could not be found in PNC.
+     */
+    @ServerExceptionMapper
+    public Response mapNotFound(NotFoundException ex) {
+        return Response.status(ex.getCode()).entity(ex.getMessage()).type(MediaType.TEXT_PLAIN).build();
+    }
+
+    /**
+     * Answer with 304 if the {@code If-None-Match} of the request matches the {@code etag}.
+     */
+    private static void checkNotModified(Request request, EntityTag etag) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            throw new WebApplicationException(notModified.tag(etag).build());
+        }
+    }
+
+    /**
+     * The public key, read once rather than for every bundle.
+     */
+    private byte[] publicKey() {
+        byte[] key = publicKey;
+        if (key == null) {
+            java.nio.file.Path file = signingConfig.publicKey().get();
+            try {
+                key = Files.readAllBytes(file);
+            } catch (IOException ex) {
+                throw new ApplicationException("File {} could not be read", file, ex);
+            }
+            publicKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * The provenance, generated on the shared single-flight path of the {@link ProvenanceService}, and emitted on the
+     * worker pool rather than on the threads of the PNC calls.
+     */
+    private Uni<Provenance> generate(PncBuildRevision buildRevision) {
+        return Uni.createFrom()
+                .completionStage(() -> provenanceService.generate(buildRevision))
+                .emitOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private Multi<byte[]> stream(String buildId, PncBuildRevision buildRevision) {
+        return generate(buildRevision).onItem()
+                .transformToMulti(provenance -> Multi.createFrom().<byte[]> emitter(emitter -> {
+                    try (OutputStream out = new ChunkedEmitterOutputStream(emitter, CHUNK_SIZE, WRITE_TIMEOUT)) {
+                        ProvenanceWriter.write(provenance, out);
+                    } catch (IOException | RuntimeException ex) {
+                        if (emitter.isCancelled()) {
+                            log.debug("Streaming of the provenance of PNC build '{}' was cancelled", buildId);
+                        } else {
+                            log.warn("Provenance of PNC build '{}' could not be streamed", buildId, ex);
+                            emitter.fail(ex);
+                        }
+                        return;
+                    }
+                    emitter.complete();
+                }))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Sign the provenance from memory, so that neither the provenance nor the signature touch the disk when the signer
+     * pipes them. A worker thread is not held while the signer runs Cosign.
+     */
+    private Uni<String> sign(String buildId, Provenance provenance) {
+        ByteArrayOutputStream blob = new ByteArrayOutputStream(CHUNK_SIZE);
+        try {
+            ProvenanceWriter.write(provenance, blob);
+        } catch (IOException ex) {
+            throw new ApplicationException("Provenance of PNC build '{}' could not be signed", buildId, ex);
+        }
+
+        log.debug("Signing provenance of PNC build '{}'", buildId);
+        return Uni.createFrom()
+                .completionStage(() -> signer.signBlobAsync(blob.toByteArray()))
+                .onFailure(ex -> !(ex instanceof RuntimeException))
+                .transform(
+                        ex -> new ApplicationException("Provenance of PNC build '{}' could not be signed", buildId, ex))
+                .map(SignedBlobResult::bundleJson);
+    }
+
+    /**
+     * Sign the provenance with the next batch. Only its digest is needed, so it is digested as it is written instead of
+     * being stored.
+     */
+    private Uni<String> signInBatch(String buildId, Provenance provenance) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                ProvenanceWriter.write(provenance, out);
+            }
+        } catch (IOException | NoSuchAlgorithmException ex) {
+            throw new ApplicationException("Provenance of PNC build '{}' could not be digested", buildId, ex);
+        }
+
+        log.debug("Signing provenance of PNC build '{}' with the next batch", buildId);
+        return Uni.createFrom()
+                .completionStage(batchSigner.signDigest(digest.digest()))
+                .map(BatchSignature::toBundleJson);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+import org.jboss.pnc.sentinel.signing.MerkleTree.InclusionProof;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The signature of a document signed as part of a batch by {@link BatchSigner}: the signature of the root of the batch,
+ * and the proof that the document is part of the batch.
+ *
+ * @param documentDigest the SHA-256 digest of the document
+ * @param root the root of the Merkle tree of the batch, which is what is signed
+ * @param proof the proof that the document is part of the batch
+ * @param rootSignature the signature of the {@code root}
+ */
+public record BatchSignature(byte[] documentDigest, byte[] root, InclusionProof proof, SignedBlobResult rootSignature) {
+
+    /**
+     * The signature as a JSON bundle: the {@code base64Signature} of the root, like in a Cosign bundle, and the
+     * {@code merkle} proof with the hashes hex-encoded.
+     */
+    public String toBundleJson() {
+        HexFormat hex = HexFormat.of();
+        ObjectNode bundle = ObjectMapperProvider.json().createObjectNode();
+        bundle.put("base64Signature", Base64.getEncoder().encodeToString(signature()));
+
+        ObjectNode merkle = bundle.putObject("merkle");
+        merkle.put("documentDigest", hex.formatHex(documentDigest));
+        merkle.put("root", hex.formatHex(root));
+        merkle.put("leafIndex", proof.leafIndex());
+        merkle.put("treeSize", proof.treeSize());
+        ArrayNode path = merkle.putArray("path");
+        proof.path().forEach(sibling -> path.add(hex.formatHex(sibling)));
+
+        try {
+            return ObjectMapperProvider.json().writeValueAsString(bundle);
+        } catch (JsonProcessingException e) {
+            throw new ApplicationException("Batch signature could not be serialized", e);
+        }
+    }
+
+    /**
+     * <p>
+     * Read a signature from the JSON bundle written by {@link #toBundleJson()}, e.g. to
+     * {@link BatchSigner#verify(byte[], BatchSignature, java.security.PublicKey) verify} a document with it.
+     * </p>
+     *
+     * <p>
+     * The bundle does not hold the Cosign bundle of the root signature, so the {@link SignedBlobResult#bundleJson()} of
+     * the {@link #rootSignature()} is {@code null}.
+     * </p>
+     *
+     * @param bundleJson the JSON bundle
+     * @return the signature
+     * @throws ApplicationException if the bundle is malformed
+     */
+    public static BatchSignature fromBundleJson(String bundleJson) {
+        try {
+            JsonNode bundle = ObjectMapperProvider.json().readTree(bundleJson);
+            JsonNode merkle = bundle.path("merkle");
+            JsonNode path = merkle.path("path");
+            if (!bundle.path("base64Signature").isTextual() || !merkle.path("documentDigest").isTextual()
+                    || !merkle.path("root").isTextual() || !merkle.path("leafIndex").isInt()
+                    || !merkle.path("treeSize").isInt() || !path.isArray()) {
+                throw new ApplicationException("Batch signature bundle is incomplete");
+            }
+
+            HexFormat hex = HexFormat.of();
+            List<byte[]> siblings = new ArrayList<>(path.size());
+            path.forEach(sibling -> siblings.add(hex.parseHex(sibling.asText())));
+
+            return new BatchSignature(
+                    hex.parseHex(merkle.path("documentDigest").asText()),
+                    hex.parseHex(merkle.path("root").asText()),
+                    new InclusionProof(merkle.path("leafIndex").asInt(), merkle.path("treeSize").asInt(), siblings),
+                    new SignedBlobResult(
+                            bundle.path("base64Signature").asText().getBytes(StandardCharsets.US_ASCII),
+                            null));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ApplicationException("Batch signature bundle could not be read", e);
+        }
+    }
+
+    /**
+     * The DER encoded signature of the root.
+     */
+    public byte[] signature() {
+        return Base64.getMimeDecoder().decode(rootSignature.signature());
+    }
+}
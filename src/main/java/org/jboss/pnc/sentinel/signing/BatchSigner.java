@@ -0,0 +1,214 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Signs documents in batches: the documents submitted within a short window are collected, a {@link MerkleTree} is
+ * built over their digests, and only its root is signed, once, by the {@link BlobSigner}. Each document gets the root
+ * signature together with its inclusion proof, see {@link BatchSignature}.
+ * </p>
+ *
+ * <p>
+ * A batch is signed when its window elapses or as soon as it is full, whichever comes first. The signing of a batch
+ * runs on a dedicated thread, the callers only wait on the returned futures.
+ * </p>
+ */
+@Slf4j
+public class BatchSigner implements AutoCloseable {
+
+    private final BlobSigner signer;
+
+    private final Duration window;
+
+    private final int maxSize;
+
+    private final ScheduledExecutorService executor;
+
+    private List<Pending> batch = new ArrayList<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private boolean closed;
+
+    /**
+     * @param signer the signer of the roots
+     * @param window how long the documents of a batch are collected, from the first one
+     * @param maxSize the number of documents above which a batch is signed without waiting for the window
+     */
+    public BatchSigner(BlobSigner signer, Duration window, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive, got " + maxSize);
+        }
+        this.signer = signer;
+        this.window = window;
+        this.maxSize = maxSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-signer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sign the {@code document} with the next batch.
+     *
+     * @param document the document
+     * @return the pending signature of the document
+     */
+    public CompletableFuture<BatchSignature> sign(byte[] document) {
+        return signDigest(MerkleTree.sha256().digest(document));
+    }
+
+    /**
+     * Sign the document with the {@code documentDigest} with the next batch, e.g. when the document was digested while
+     * it was written.
+     *
+     * @param documentDigest the SHA-256 digest of the document
+     * @return the pending signature of the document
+     */
+    public synchronized CompletableFuture<BatchSignature> signDigest(byte[] documentDigest) {
+        if (closed) {
+            throw new IllegalStateException("The batch signer is closed");
+        }
+        if (documentDigest.length != MerkleTree.HASH_LENGTH) {
+            throw new IllegalArgumentException("A SHA-256 digest is 32 bytes, got " + documentDigest.length);
+        }
+
+        Pending pending = new Pending(documentDigest.clone(), new CompletableFuture<>());
+        batch.add(pending);
+        if (batch.size() >= maxSize) {
+            List<Pending> full = takeBatch();
+            executor.execute(() -> sign(full));
+        } else if (batch.size() == 1) {
+            scheduledFlush = executor.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return pending.signature();
+    }
+
+    /**
+     * Sign the current batch without waiting for its window to elapse.
+     */
+    public void flush() {
+        List<Pending> current;
+        synchronized (this) {
+            current = takeBatch();
+        }
+        if (!current.isEmpty()) {
+            sign(current);
+        }
+    }
+
+    /**
+     * Sign the pending documents and stop.
+     */
+    @Override
+    public void close() {
+        List<Pending> current;
+        synchronized (this) {
+            closed = true;
+            current = takeBatch();
+        }
+        if (!current.isEmpty()) {
+            executor.execute(() -> sign(current));
+        }
+        executor.shutdown();
+    }
+
+    private List<Pending> takeBatch() {
+        List<Pending> current = batch;
+        batch = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return current;
+    }
+
+    private void sign(List<Pending> documents) {
+        try {
+            MerkleTree tree = new MerkleTree(documents.stream().map(Pending::documentDigest).toList());
+            byte[] root = tree.root();
+            SignedBlobResult rootSignature = signer.signBlob(root);
+            log.debug("Signed a batch of {} documents", documents.size());
+
+            for (int i = 0; i < documents.size(); i++) {
+                Pending pending = documents.get(i);
+                pending.signature()
+                        .complete(new BatchSignature(pending.documentDigest(), root, tree.proof(i), rootSignature));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Batch of {} documents could not be signed", documents.size(), e);
+            documents.forEach(pending -> pending.signature().completeExceptionally(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            documents.forEach(pending -> pending.signature().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Verify the signature of a document signed as part of a batch.
+     *
+     * @param document the document
+     * @param signature the batch signature of the document
+     * @param publicKey the public key matching the key of the signer
+     * @return whether the document is part of the batch and the root of the batch was signed with the key
+     */
+    public static boolean verify(byte[] document, BatchSignature signature, PublicKey publicKey) {
+        byte[] documentDigest = MerkleTree.sha256().digest(document);
+        if (!MessageDigest.isEqual(documentDigest, signature.documentDigest())
+                || !MerkleTree.verify(documentDigest, signature.proof(), signature.root())) {
+            return false;
+        }
+
+        try {
+            Signature verifier = Signature.getInstance(CosignKeySigner.SIGNATURE_ALGORITHM);
+            verifier.initVerify(publicKey);
+            verifier.update(signature.root());
+            return verifier.verify(signature.signature());
+        } catch (SignatureException | IllegalArgumentException e) {
+            // A malformed signature does not verify
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("Batch signature could not be verified", e);
+        }
+    }
+
+    private record Pending(byte[] documentDigest, CompletableFuture<BatchSignature> signature) {
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+
+/**
+ * <p>
+ * Signs blobs with a Cosign key, either in process with {@link CosignKeySigner} or with the Cosign CLI through
+ * {@link CosignWrapper}.
+ * </p>
+ *
+ * <p>
+ * Both produce a {@link SignedBlobResult} with the same kind of signature, but not the same bundle. The Cosign CLI
+ * uploads the signature to the Rekor transparency log, and its bundle holds the {@code rekorBundle} entry along with
+ * the {@code base64Signature}: it is verified with {@code cosign verify-blob --key <public key> --bundle <bundle>}.
+ * {@link CosignKeySigner} uploads nothing, and its bundle only holds the {@code base64Signature}: it is verified with
+ * {@code cosign verify-blob --key <public key> --bundle <bundle> --insecure-ignore-tlog}.
+ * </p>
+ */
+public interface BlobSigner {
+
+    /**
+     * Sign the {@code payload}.
+     *
+     * @param payload the blob to sign
+     * @return the Base64 encoded signature and the Cosign bundle
+     */
+    SignedBlobResult signBlob(byte[] payload) throws IOException, InterruptedException;
+
+    /**
+     * Sign the content of the {@code blobPath} file.
+     *
+     * @param blobPath the blob to sign
+     * @return the Base64 encoded signature and the Cosign bundle
+     */
+    SignedBlobResult signBlob(Path blobPath) throws IOException, InterruptedException;
+
+    /**
+     * Sign the {@code payload} without blocking the caller, if the signer supports it. Signs on the calling thread by
+     * default.
+     *
+     * @param payload the blob to sign
+     * @return a future completed with the Base64 encoded signature and the Cosign bundle
+     */
+    default CompletableFuture<SignedBlobResult> signBlobAsync(byte[] payload) {
+        try {
+            return CompletableFuture.completedFuture(signBlob(payload));
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.nio.file.Path;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.config.SigningConfig;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper;
+import org.jboss.pnc.sentinel.provenance.utils.ProcessLimiter;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+@ApplicationScoped
+@Slf4j
+public class BlobSignerProducer {
+
+    @Inject
+    SigningConfig config;
+
+    @ConfigProperty(name = "cosign.password", defaultValue = "")
+    String cosignPassword;
+
+    private BlobSigner signer;
+
+    /**
+     * Decrypt the private key when the application starts rather than on the first signing, as the scrypt key
+     * derivation alone takes a second or so.
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (config.privateKey().isPresent() && config.publicKey().isPresent()) {
+            signer();
+        }
+    }
+
+    @Produces
+    @ApplicationScoped
+    public BlobSigner produceBlobSigner() {
+        return signer();
+    }
+
+    @Produces
+    @ApplicationScoped
+    public BatchSigner produceBatchSigner(BlobSigner blobSigner) {
+        log.debug(
+                "Creating new batch signer signing up to {} documents every {}...",
+                config.batch().maxSize(),
+                config.batch().window());
+        return new BatchSigner(blobSigner, config.batch().window(), config.batch().maxSize());
+    }
+
+    public void close(@Disposes BatchSigner batchSigner) {
+        log.debug("Closing the batch signer...");
+        batchSigner.close();
+    }
+
+    private synchronized BlobSigner signer() {
+        if (signer != null) {
+            return signer;
+        }
+        if (config.privateKey().isEmpty() || config.publicKey().isEmpty()) {
+            throw new ApplicationException("Signing keys are not configured");
+        }
+        Path privateKey = config.privateKey().get();
+        Path publicKey = config.publicKey().get();
+
+        log.debug("Creating new {} blob signer with private key '{}'...", config.engine(), privateKey);
+        signer = switch (config.engine()) {
+            case IN_PROCESS -> CosignKeySigner.load(privateKey, publicKey, cosignPassword);
+            case COSIGN -> cosignWrapper(privateKey, publicKey);
+        };
+        return signer;
+    }
+
+    private CosignWrapper cosignWrapper(Path privateKey, Path publicKey) {
+        int maxProcesses = config.cosign().maxProcesses().orElse(Runtime.getRuntime().availableProcessors());
+        log.debug(
+                "Running up to {} Cosign processes at once, each for up to {}",
+                maxProcesses,
+                config.cosign().timeout());
+        return new CosignWrapper(
+                privateKey,
+                publicKey,
+                cosignPassword,
+                cosignScratchDirectory(),
+                new ProcessLimiter(maxProcesses),
+                config.cosign().timeout());
+    }
+
+    private Path cosignScratchDirectory() {
+        if (!config.cosign().pipes()) {
+            return null;
+        }
+        Path scratchDirectory = config.cosign().scratchDir().orElseGet(CosignWrapper::defaultScratchDirectory);
+        log.debug("Piping the payloads to Cosign, with scratch directory '{}'", scratchDirectory);
+        return scratchDirectory;
+    }
+}
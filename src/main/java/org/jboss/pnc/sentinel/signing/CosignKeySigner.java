@@ -0,0 +1,203 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * <p>
+ * Signs blobs and DSSE envelopes in process with a Cosign key pair, decrypted once when the signer is created.
+ * </p>
+ *
+ * <p>
+ * Unlike {@link CosignWrapper} no process is started and no file is written: a signature is an ECDSA P-256 signature
+ * over the SHA-256 of the blob, computed with the JDK provider. The results are those of
+ * {@code cosign sign-blob --tlog-upload=false} and {@code cosign attest-blob --tlog-upload=false}: they are verified
+ * with {@code cosign verify-blob --key <public key> --insecure-ignore-tlog}, as nothing is uploaded to Rekor.
+ * </p>
+ */
+public class CosignKeySigner implements BlobSigner {
+
+    /**
+     * The DSSE payload type of in-toto statements.
+     */
+    public static final String IN_TOTO_PAYLOAD_TYPE = "application/vnd.in-toto+json";
+
+    static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PrivateKey privateKey;
+
+    private final PublicKey publicKey;
+
+    /**
+     * @param privateKey the private key to sign with
+     * @param publicKey the public key matching the {@code privateKey}
+     * @throws ApplicationException if the keys do not match
+     */
+    public CosignKeySigner(PrivateKey privateKey, PublicKey publicKey) {
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+
+        byte[] probe = "probe".getBytes(StandardCharsets.UTF_8);
+        if (!verify(probe, sign(probe))) {
+            throw new ApplicationException("The Cosign private key does not match the public key");
+        }
+    }
+
+    /**
+     * Read and decrypt a Cosign key pair.
+     *
+     * @param privateKeyPath the Cosign private key
+     * @param publicKeyPath the Cosign public key
+     * @param password the password of the private key, can be empty
+     */
+    public static CosignKeySigner load(Path privateKeyPath, Path publicKeyPath, String password) {
+        return new CosignKeySigner(
+                CosignKeys.readPrivateKey(privateKeyPath, password),
+                CosignKeys.readPublicKey(publicKeyPath));
+    }
+
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    @Override
+    public SignedBlobResult signBlob(byte[] payload) {
+        return result(sign(payload));
+    }
+
+    /**
+     * Sign the content of the {@code blobPath} file, read in chunks rather than all at once.
+     */
+    @Override
+    public SignedBlobResult signBlob(Path blobPath) throws IOException {
+        try (InputStream in = Files.newInputStream(blobPath)) {
+            Signature signature = signature();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                signature.update(buffer, 0, read);
+            }
+            return result(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("Blob '{}' could not be signed", blobPath, e);
+        }
+    }
+
+    /**
+     * Sign the {@code payload} as a DSSE envelope.
+     *
+     * @param payload the payload, e.g. an in-toto statement
+     * @param payloadType the type of the payload, e.g. {@link #IN_TOTO_PAYLOAD_TYPE}
+     * @return the JSON of the envelope
+     */
+    public String signEnvelope(byte[] payload, String payloadType) {
+        byte[] signature = sign(preAuthenticationEncoding(payloadType, payload));
+
+        ObjectNode envelope = ObjectMapperProvider.json().createObjectNode();
+        envelope.put("payloadType", payloadType);
+        envelope.put("payload", Base64.getEncoder().encodeToString(payload));
+        envelope.putArray("signatures")
+                .addObject()
+                .put("keyid", "")
+                .put("sig", Base64.getEncoder().encodeToString(signature));
+        return toJson(envelope);
+    }
+
+    /**
+     * The DSSE pre-authentication encoding of the {@code payload}, which is what the signature of an envelope is
+     * computed over.
+     */
+    public static byte[] preAuthenticationEncoding(String payloadType, byte[] payload) {
+        byte[] type = payloadType.getBytes(StandardCharsets.UTF_8);
+        byte[] header = ("DSSEv1 " + type.length + " " + payloadType + " " + payload.length + " ")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] encoding = new byte[header.length + payload.length];
+        System.arraycopy(header, 0, encoding, 0, header.length);
+        System.arraycopy(payload, 0, encoding, header.length, payload.length);
+        return encoding;
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Signature signature = signature();
+            signature.update(payload);
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("Payload could not be signed", e);
+        }
+    }
+
+    private boolean verify(byte[] payload, byte[] signatureBytes) {
+        try {
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initVerify(publicKey);
+            signature.update(payload);
+            return signature.verify(signatureBytes);
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("Signature could not be verified", e);
+        }
+    }
+
+    /**
+     * {@link Signature} instances are not thread safe, and creating one is cheap compared to signing.
+     */
+    private Signature signature() throws GeneralSecurityException {
+        Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+        signature.initSign(privateKey);
+        return signature;
+    }
+
+    /**
+     * The signature file and the bundle as written by {@code cosign sign-blob}: the Base64 encoded DER signature, and
+     * the same signature in a bundle without Rekor entry.
+     */
+    private static SignedBlobResult result(byte[] signature) {
+        String base64Signature = Base64.getEncoder().encodeToString(signature);
+
+        ObjectNode bundle = ObjectMapperProvider.json().createObjectNode();
+        bundle.put("base64Signature", base64Signature);
+        return new SignedBlobResult(base64Signature.getBytes(StandardCharsets.US_ASCII), toJson(bundle));
+    }
+
+    private static String toJson(ObjectNode node) {
+        try {
+            return ObjectMapperProvider.json().writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new ApplicationException("Signature could not be serialized", e);
+        }
+    }
+}
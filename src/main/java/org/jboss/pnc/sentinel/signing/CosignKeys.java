@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * <p>
+ * Reads the keys generated by {@code cosign generate-key-pair}.
+ * </p>
+ *
+ * <p>
+ * The private key is a PEM block wrapping a JSON document: the PKCS#8 key encrypted with NaCl {@code secretbox}, under
+ * a key derived from the password with scrypt. The public key is a plain PEM encoded X.509 {@code PUBLIC KEY}.
+ * </p>
+ */
+public final class CosignKeys {
+
+    static final Set<String> PRIVATE_KEY_TYPES = Set
+            .of("ENCRYPTED SIGSTORE PRIVATE KEY", "ENCRYPTED COSIGN PRIVATE KEY");
+
+    static final String PUBLIC_KEY_TYPE = "PUBLIC KEY";
+
+    private CosignKeys() {
+    }
+
+    /**
+     * Read and decrypt a Cosign private key.
+     *
+     * @param path the Cosign private key
+     * @param password the password of the key, can be empty
+     * @return the decrypted key
+     */
+    public static PrivateKey readPrivateKey(Path path, String password) {
+        return decryptPrivateKey(read(path), password);
+    }
+
+    /**
+     * Decrypt a PEM encoded Cosign private key.
+     *
+     * @param pem the Cosign private key
+     * @param password the password of the key, can be empty
+     * @return the decrypted key
+     */
+    public static PrivateKey decryptPrivateKey(String pem, String password) {
+        byte[] document = decodePem(pem, PRIVATE_KEY_TYPES);
+        byte[] pkcs8;
+        try {
+            JsonNode encrypted = ObjectMapperProvider.json().readTree(document);
+            JsonNode kdf = encrypted.path("kdf");
+            JsonNode cipher = encrypted.path("cipher");
+            if (!"scrypt".equals(kdf.path("name").asText()) || !"nacl/secretbox".equals(cipher.path("name").asText())) {
+                throw new ApplicationException(
+                        "Unsupported Cosign private key encryption {} with {}",
+                        kdf.path("name").asText(),
+                        cipher.path("name").asText());
+            }
+
+            JsonNode params = kdf.path("params");
+            byte[] key = Scrypt.derive(
+                    (password == null ? "" : password).getBytes(StandardCharsets.UTF_8),
+                    Base64.getDecoder().decode(kdf.path("salt").asText()),
+                    params.path("N").asInt(),
+                    params.path("r").asInt(),
+                    params.path("p").asInt(),
+                    SecretBox.KEY_LENGTH);
+            try {
+                pkcs8 = SecretBox.open(
+                        Base64.getDecoder().decode(encrypted.path("ciphertext").asText()),
+                        Base64.getDecoder().decode(cipher.path("nonce").asText()),
+                        key);
+            } finally {
+                Arrays.fill(key, (byte) 0);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ApplicationException("The Cosign private key is malformed", e);
+        }
+
+        if (pkcs8 == null) {
+            throw new ApplicationException("The Cosign private key could not be decrypted, the password is wrong");
+        }
+
+        try {
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("The Cosign private key is not an EC key", e);
+        } finally {
+            Arrays.fill(pkcs8, (byte) 0);
+        }
+    }
+
+    /**
+     * Read a Cosign public key.
+     *
+     * @param path the Cosign public key
+     * @return the public key
+     */
+    public static PublicKey readPublicKey(Path path) {
+        return decodePublicKey(read(path));
+    }
+
+    /**
+     * Decode a PEM encoded public key.
+     *
+     * @param pem the public key
+     * @return the public key
+     */
+    public static PublicKey decodePublicKey(String pem) {
+        try {
+            return KeyFactory.getInstance("EC")
+                    .generatePublic(new X509EncodedKeySpec(decodePem(pem, Set.of(PUBLIC_KEY_TYPE))));
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("The Cosign public key is not an EC key", e);
+        }
+    }
+
+    /**
+     * Decode the content of the first PEM block of one of the {@code types}.
+     */
+    static byte[] decodePem(String pem, Set<String> types) {
+        for (String type : types) {
+            String begin = "-----BEGIN " + type + "-----";
+            int start = pem.indexOf(begin);
+            if (start < 0) {
+                continue;
+            }
+            int end = pem.indexOf("-----END " + type + "-----", start);
+            if (end < 0) {
+                break;
+            }
+            try {
+                return Base64.getMimeDecoder().decode(pem.substring(start + begin.length(), end));
+            } catch (IllegalArgumentException e) {
+                throw new ApplicationException("The PEM block {} is not valid Base64", type, e);
+            }
+        }
+        throw new ApplicationException("No PEM block of type {} was found", types);
+    }
+
+    private static String read(Path path) {
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new ApplicationException("Key '{}' could not be read", path, e);
+        }
+    }
+}
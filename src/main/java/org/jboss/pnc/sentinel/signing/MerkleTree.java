@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+
+/**
+ * <p>
+ * A Merkle tree over the SHA-256 digests of a batch of documents, hashed as in RFC 6962: a leaf is
+ * {@code SHA-256(0x00 || digest)} and a node {@code SHA-256(0x01 || left || right)}, so that a leaf can never pass for
+ * a node. A batch of any size is supported, the last node of a level without a sibling moves up unchanged.
+ * </p>
+ *
+ * <p>
+ * Signing the {@link #root()} signs every document of the batch: the {@link InclusionProof} of a document is the list
+ * of the sibling hashes on its way to the root, {@code log2(size)} hashes at most.
+ * </p>
+ */
+public final class MerkleTree {
+
+    static final int HASH_LENGTH = 32;
+
+    private static final byte LEAF_PREFIX = 0;
+
+    private static final byte NODE_PREFIX = 1;
+
+    /**
+     * The hashes of the tree level by level, from the leaves to the root.
+     */
+    private final List<byte[][]> levels = new ArrayList<>();
+
+    /**
+     * @param documentDigests the SHA-256 digests of the documents, at least one
+     */
+    public MerkleTree(List<byte[]> documentDigests) {
+        if (documentDigests.isEmpty()) {
+            throw new IllegalArgumentException("A Merkle tree needs at least one document");
+        }
+
+        MessageDigest sha256 = sha256();
+        byte[][] level = new byte[documentDigests.size()][];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = leafHash(sha256, documentDigests.get(i));
+        }
+        levels.add(level);
+
+        while (level.length > 1) {
+            byte[][] parents = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = 2 * i + 1 < level.length ? nodeHash(sha256, level[2 * i], level[2 * i + 1]) : level[2 * i];
+            }
+            levels.add(parents);
+            level = parents;
+        }
+    }
+
+    public int size() {
+        return levels.get(0).length;
+    }
+
+    public byte[] root() {
+        return levels.get(levels.size() - 1)[0].clone();
+    }
+
+    /**
+     * The proof that the document at {@code index} is part of the tree.
+     */
+    public InclusionProof proof(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("No document " + index + " in a tree of " + size());
+        }
+
+        List<byte[]> path = new ArrayList<>();
+        int position = index;
+        for (int depth = 0; depth < levels.size() - 1; depth++) {
+            byte[][] level = levels.get(depth);
+            int sibling = position ^ 1;
+            if (sibling < level.length) {
+                path.add(level[sibling].clone());
+            }
+            position >>= 1;
+        }
+        return new InclusionProof(index, size(), path);
+    }
+
+    /**
+     * Compute the root of the tree the {@code proof} was taken from, with the RFC 9162 verification algorithm.
+     *
+     * @param documentDigest the SHA-256 digest of the document
+     * @param proof the inclusion proof of the document
+     * @return the root, or {@code null} if the proof is malformed
+     */
+    public static byte[] rootFromProof(byte[] documentDigest, InclusionProof proof) {
+        if (proof.leafIndex() < 0 || proof.leafIndex() >= proof.treeSize()) {
+            return null;
+        }
+
+        MessageDigest sha256 = sha256();
+        long index = proof.leafIndex();
+        long last = proof.treeSize() - 1L;
+        byte[] hash = leafHash(sha256, documentDigest);
+        for (byte[] sibling : proof.path()) {
+            if (last == 0 || sibling.length != HASH_LENGTH) {
+                return null;
+            }
+            if ((index & 1) == 1 || index == last) {
+                hash = nodeHash(sha256, sibling, hash);
+                // Skip the levels where the node has no sibling and moved up unchanged
+                while ((index & 1) == 0 && index != 0) {
+                    index >>= 1;
+                    last >>= 1;
+                }
+            } else {
+                hash = nodeHash(sha256, hash, sibling);
+            }
+            index >>= 1;
+            last >>= 1;
+        }
+        return last == 0 ? hash : null;
+    }
+
+    /**
+     * Whether the document with the {@code documentDigest} is part of the tree with the {@code root}.
+     */
+    public static boolean verify(byte[] documentDigest, InclusionProof proof, byte[] root) {
+        byte[] computed = rootFromProof(documentDigest, proof);
+        return computed != null && MessageDigest.isEqual(computed, root);
+    }
+
+    private static byte[] leafHash(MessageDigest sha256, byte[] documentDigest) {
+        sha256.update(LEAF_PREFIX);
+        return sha256.digest(documentDigest);
+    }
+
+    private static byte[] nodeHash(MessageDigest sha256, byte[] left, byte[] right) {
+        sha256.update(NODE_PREFIX);
+        sha256.update(left);
+        return sha256.digest(right);
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ApplicationException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The sibling hashes from the leaf of a document to the root of a tree.
+     *
+     * @param leafIndex the index of the document in the batch
+     * @param treeSize the number of documents in the batch
+     * @param path the sibling hashes, from the leaf up
+     */
+    public record InclusionProof(int leafIndex, int treeSize, List<byte[]> path) {
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof InclusionProof proof) || leafIndex != proof.leafIndex || treeSize != proof.treeSize
+                    || path.size() != proof.path.size()) {
+                return false;
+            }
+            for (int i = 0; i < path.size(); i++) {
+                if (!Arrays.equals(path.get(i), proof.path.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * leafIndex + treeSize;
+            for (byte[] sibling : path) {
+                hash = 31 * hash + Arrays.hashCode(sibling);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.security.GeneralSecurityException;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+
+/**
+ * The scrypt key derivation function of RFC 7914, which Cosign derives the encryption key of its private keys with.
+ */
+final class Scrypt {
+
+    private Scrypt() {
+    }
+
+    /**
+     * Derive a key of {@code length} bytes from the {@code password}.
+     *
+     * @param n the CPU/memory cost, a power of 2
+     * @param r the block size
+     * @param p the parallelization
+     */
+    static byte[] derive(byte[] password, byte[] salt, int n, int r, int p, int length) {
+        if (n < 2 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("The scrypt cost must be a power of 2 greater than 1, got " + n);
+        }
+        if (r < 1 || p < 1 || (long) r * p >= 1 << 30 || (long) n * r > Integer.MAX_VALUE / 32) {
+            throw new IllegalArgumentException("Unsupported scrypt parameters r=" + r + ", p=" + p);
+        }
+
+        int blockLength = 128 * r;
+        byte[] blocks = pbkdf2(password, salt, p * blockLength);
+
+        int[] x = new int[32 * r];
+        int[] y = new int[32 * r];
+        int[] v = new int[32 * r * n];
+        for (int i = 0; i < p; i++) {
+            roMix(blocks, i * blockLength, r, n, x, y, v);
+        }
+
+        return pbkdf2(password, blocks, length);
+    }
+
+    private static void roMix(byte[] blocks, int offset, int r, int n, int[] x, int[] y, int[] v) {
+        int words = 32 * r;
+        for (int i = 0; i < words; i++) {
+            x[i] = Salsa20.littleEndian(blocks, offset + 4 * i);
+        }
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(x, 0, v, i * words, words);
+            blockMix(x, y, r);
+        }
+        for (int i = 0; i < n; i++) {
+            int j = x[(2 * r - 1) * 16] & (n - 1);
+            for (int k = 0; k < words; k++) {
+                x[k] ^= v[j * words + k];
+            }
+            blockMix(x, y, r);
+        }
+
+        for (int i = 0; i < words; i++) {
+            Salsa20.littleEndian(x[i], blocks, offset + 4 * i);
+        }
+    }
+
+    /**
+     * Mix the {@code 2r} blocks of {@code b} in place, using {@code y} as scratch space.
+     */
+    private static void blockMix(int[] b, int[] y, int r) {
+        int[] x = new int[16];
+        System.arraycopy(b, (2 * r - 1) * 16, x, 0, 16);
+
+        for (int i = 0; i < 2 * r; i++) {
+            for (int k = 0; k < 16; k++) {
+                x[k] ^= b[i * 16 + k];
+            }
+            Salsa20.core(x, 8);
+            // The even blocks go to the first half, the odd blocks to the second half
+            System.arraycopy(x, 0, y, (i / 2 + (i % 2) * r) * 16, 16);
+        }
+        System.arraycopy(y, 0, b, 0, 32 * r);
+    }
+
+    /**
+     * PBKDF2 with HMAC-SHA256 and a single iteration, as used by scrypt.
+     */
+    private static byte[] pbkdf2(byte[] password, byte[] salt, int length) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            // An empty HMAC key is padded to the same block as a single zero byte, which the key spec accepts
+            mac.init(new SecretKeySpec(password.length == 0 ? new byte[1] : password, "HmacSHA256"));
+
+            byte[] derived = new byte[length];
+            byte[] counter = new byte[4];
+            for (int block = 1, offset = 0; offset < length; block++, offset += 32) {
+                counter[0] = (byte) (block >>> 24);
+                counter[1] = (byte) (block >>> 16);
+                counter[2] = (byte) (block >>> 8);
+                counter[3] = (byte) block;
+                mac.update(salt);
+                byte[] t = mac.doFinal(counter);
+                System.arraycopy(t, 0, derived, offset, Math.min(32, length - offset));
+            }
+            return derived;
+        } catch (GeneralSecurityException e) {
+            throw new ApplicationException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
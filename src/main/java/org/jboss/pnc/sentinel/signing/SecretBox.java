@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * The NaCl {@code secretbox} authenticated encryption (XSalsa20 and Poly1305), which Cosign encrypts its private keys
+ * with. Only opening boxes is needed.
+ */
+final class SecretBox {
+
+    static final int KEY_LENGTH = 32;
+
+    static final int NONCE_LENGTH = 24;
+
+    static final int TAG_LENGTH = 16;
+
+    private static final BigInteger POLY1305_PRIME = BigInteger.ONE.shiftLeft(130).subtract(BigInteger.valueOf(5));
+
+    private static final BigInteger POLY1305_CLAMP = new BigInteger("0ffffffc0ffffffc0ffffffc0fffffff", 16);
+
+    private SecretBox() {
+    }
+
+    /**
+     * Authenticate and decrypt the {@code box}, the Poly1305 tag followed by the ciphertext.
+     *
+     * @return the plaintext, or {@code null} if the box was not sealed with the {@code key} and {@code nonce}
+     */
+    static byte[] open(byte[] box, byte[] nonce, byte[] key) {
+        if (key.length != KEY_LENGTH || nonce.length != NONCE_LENGTH) {
+            throw new IllegalArgumentException("The secretbox key must be 32 bytes and the nonce 24 bytes");
+        }
+        if (box.length < TAG_LENGTH) {
+            return null;
+        }
+
+        // The first 32 bytes of the key stream are the one-time Poly1305 key, the message is encrypted with the rest
+        byte[] stream = xsalsa20(key, nonce, 32 + box.length - TAG_LENGTH);
+        byte[] ciphertext = Arrays.copyOfRange(box, TAG_LENGTH, box.length);
+        byte[] tag = poly1305(ciphertext, Arrays.copyOf(stream, 32));
+        if (!MessageDigest.isEqual(tag, Arrays.copyOf(box, TAG_LENGTH))) {
+            return null;
+        }
+
+        byte[] plaintext = new byte[ciphertext.length];
+        for (int i = 0; i < plaintext.length; i++) {
+            plaintext[i] = (byte) (ciphertext[i] ^ stream[32 + i]);
+        }
+        return plaintext;
+    }
+
+    /**
+     * The first {@code length} bytes of the XSalsa20 key stream.
+     */
+    static byte[] xsalsa20(byte[] key, byte[] nonce, int length) {
+        // HSalsa20 derives a subkey from the key and the first 16 bytes of the nonce
+        int[] state = state(key, nonce, 0);
+        state[8] = Salsa20.littleEndian(nonce, 8);
+        state[9] = Salsa20.littleEndian(nonce, 12);
+        Salsa20.rounds(state, 20);
+        byte[] subkey = new byte[32];
+        int[] subkeyWords = { state[0], state[5], state[10], state[15], state[6], state[7], state[8], state[9] };
+        for (int i = 0; i < 8; i++) {
+            Salsa20.littleEndian(subkeyWords[i], subkey, 4 * i);
+        }
+
+        // Salsa20 with the subkey and the last 8 bytes of the nonce
+        byte[] stream = new byte[length];
+        byte[] block = new byte[64];
+        for (int counter = 0, offset = 0; offset < length; counter++, offset += 64) {
+            int[] x = state(subkey, nonce, 16);
+            x[8] = counter;
+            x[9] = 0;
+            Salsa20.core(x, 20);
+            for (int i = 0; i < 16; i++) {
+                Salsa20.littleEndian(x[i], block, 4 * i);
+            }
+            System.arraycopy(block, 0, stream, offset, Math.min(64, length - offset));
+        }
+        return stream;
+    }
+
+    /**
+     * A Salsa20 state with the {@code key} and the 8 bytes of the {@code nonce} from {@code nonceOffset}.
+     */
+    private static int[] state(byte[] key, byte[] nonce, int nonceOffset) {
+        int[] x = new int[16];
+        x[0] = Salsa20.SIGMA[0];
+        x[5] = Salsa20.SIGMA[1];
+        x[10] = Salsa20.SIGMA[2];
+        x[15] = Salsa20.SIGMA[3];
+        for (int i = 0; i < 4; i++) {
+            x[1 + i] = Salsa20.littleEndian(key, 4 * i);
+            x[11 + i] = Salsa20.littleEndian(key, 16 + 4 * i);
+        }
+        x[6] = Salsa20.littleEndian(nonce, nonceOffset);
+        x[7] = Salsa20.littleEndian(nonce, nonceOffset + 4);
+        return x;
+    }
+
+    /**
+     * The Poly1305 tag of the {@code message} with the one-time {@code key}. Boxes are only opened when a key is
+     * loaded, so clarity is preferred over speed.
+     */
+    static byte[] poly1305(byte[] message, byte[] key) {
+        BigInteger r = littleEndian(key, 0, 16).and(POLY1305_CLAMP);
+        BigInteger s = littleEndian(key, 16, 16);
+
+        BigInteger accumulator = BigInteger.ZERO;
+        for (int offset = 0; offset < message.length; offset += 16) {
+            int length = Math.min(16, message.length - offset);
+            BigInteger n = littleEndian(message, offset, length).setBit(8 * length);
+            accumulator = accumulator.add(n).multiply(r).mod(POLY1305_PRIME);
+        }
+
+        byte[] tag = new byte[TAG_LENGTH];
+        byte[] value = accumulator.add(s).toByteArray();
+        for (int i = 0; i < TAG_LENGTH && i < value.length; i++) {
+            tag[i] = value[value.length - 1 - i];
+        }
+        return tag;
+    }
+
+    private static BigInteger littleEndian(byte[] bytes, int offset, int length) {
+        byte[] bigEndian = new byte[length + 1];
+        for (int i = 0; i < length; i++) {
+            bigEndian[length - i] = bytes[offset + i];
+        }
+        return new BigInteger(bigEndian);
+    }
+}
@@ -17,6 +17,8 @@
  */
 package org.jboss.pnc.sentinel.utils;
 
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceModule;
+
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
@@ -24,6 +26,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -44,6 +47,25 @@ public class ObjectMapperProvider {
 
     static final ObjectMapper jsonObjectMapper = JsonMapper.builder()
             .addModule(new JavaTimeModule())
+            .addModule(new ProvenanceModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .propertyNamingStrategy(PropertyNamingStrategies.LOWER_CAMEL_CASE)
+            .serializationInclusion(Include.NON_NULL)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.FAIL_ON_UNWRAPPED_TYPE_IDENTIFIERS)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+
+    /**
+     * Binary Smile counterpart of {@link #jsonObjectMapper}, for provenances which are cached, queued or transferred
+     * internally without being signed. It writes the same tokens in the same order, so reading its output back and
+     * writing it with {@link #json()} gives the same canonical JSON.
+     */
+    static final ObjectMapper smileObjectMapper = SmileMapper.builder()
+            .addModule(new JavaTimeModule())
+            .addModule(new ProvenanceModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
             .propertyNamingStrategy(PropertyNamingStrategies.LOWER_CAMEL_CASE)
             .serializationInclusion(Include.NON_NULL)
@@ -61,4 +83,8 @@ public class ObjectMapperProvider {
     public static ObjectMapper json() {
         return jsonObjectMapper;
     }
+
+    public static ObjectMapper smile() {
+        return smileObjectMapper;
+    }
 }
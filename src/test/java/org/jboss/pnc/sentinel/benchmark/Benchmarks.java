@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.benchmark;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Helpers of the benchmarks.
+ * </p>
+ *
+ * <p>
+ * The benchmarks are not run with the unit tests, only with the {@code benchmark} profile:
+ * {@code mvn test -Pbenchmark}, or a single one with e.g.
+ * {@code mvn test -Pbenchmark -Dtest=ProvenanceWriterBenchmark}. They log their measurements, and only fail when an
+ * optimization does not pay off at all.
+ * </p>
+ */
+final class Benchmarks {
+
+    /**
+     * Keeps the results of the measured tasks reachable, so that the JIT cannot eliminate their work.
+     */
+    static volatile Object sink;
+
+    private Benchmarks() {
+        // This is a utility class
+    }
+
+    /**
+     * Run the {@code task} as many times as needed for about {@code budgetNanos}, after as many warm-up runs.
+     *
+     * @return the fastest run, in nanoseconds
+     */
+    static long fastest(long budgetNanos, Supplier<?> task) {
+        run(budgetNanos, task);
+        return run(budgetNanos, task);
+    }
+
+    private static long run(long budgetNanos, Supplier<?> task) {
+        long fastest = Long.MAX_VALUE;
+        long deadline = System.nanoTime() + budgetNanos;
+        // At least a few runs, however slow the task
+        for (int i = 0; i < 5 || System.nanoTime() < deadline; i++) {
+            long start = System.nanoTime();
+            sink = task.get();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.jboss.pnc.sentinel.compression.CompressionDictionary;
+import org.jboss.pnc.sentinel.compression.DictionaryCompressor;
+import org.jboss.pnc.sentinel.compression.DictionaryTrainer;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the ratio and the throughput of the dictionary compression of provenances with gzip:
+ * {@code mvn test -Pbenchmark -Dtest=DictionaryCompressorBenchmark}.
+ */
+@QuarkusTest
+@Slf4j
+class DictionaryCompressorBenchmark {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private static final long BUDGET = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    void benchmarkDictionaryCompression() throws IOException {
+        // The dictionary is trained on other provenances than the compressed ones
+        List<byte[]> documents = provenances(7, 200);
+        DictionaryCompressor compressor = new DictionaryCompressor(
+                DictionaryTrainer.train(provenances(8, 100), CompressionDictionary.MAX_SIZE));
+
+        long original = 0;
+        long gzipped = 0;
+        long compressed = 0;
+        for (byte[] document : documents) {
+            original += document.length;
+            gzipped += gzip(document).length;
+            byte[] compressedDocument = compressor.compress(document);
+            compressed += compressedDocument.length;
+            assertArrayEquals(document, compressor.decompress(compressedDocument));
+        }
+        double gzipRatio = (double) original / gzipped;
+        double dictionaryRatio = (double) original / compressed;
+
+        long gzipTime = Benchmarks.fastest(BUDGET, () -> {
+            for (byte[] document : documents) {
+                gzip(document);
+            }
+            return null;
+        });
+        long compressTime = Benchmarks.fastest(BUDGET, () -> {
+            for (byte[] document : documents) {
+                compressor.compress(document);
+            }
+            return null;
+        });
+
+        log.info(
+                "{} provenances of {} bytes: gzip ratio {} at {} MB/s, dictionary ratio {} at {} MB/s",
+                documents.size(),
+                original / documents.size(),
+                String.format("%.2f", gzipRatio),
+                original * 1_000 / gzipTime,
+                String.format("%.2f", dictionaryRatio),
+                original * 1_000 / compressTime);
+
+        assertTrue(
+                dictionaryRatio > gzipRatio,
+                "The dictionary compression should beat gzip on provenances: ratio " + dictionaryRatio + " vs "
+                        + gzipRatio);
+    }
+
+    /**
+     * Variations of the expected provenance, with random build identifiers and checksums like real builds have.
+     */
+    private static List<byte[]> provenances(long seed, int count) throws IOException {
+        String template = TestResources.asString("pnc/provenance/provenance.json");
+        Random random = new Random(seed);
+        List<byte[]> provenances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Matcher matcher = SHA256.matcher(template.replace("BJ3TGDXPQWYAC", randomId(random)));
+            StringBuilder provenance = new StringBuilder();
+            while (matcher.find()) {
+                byte[] sha256 = new byte[32];
+                random.nextBytes(sha256);
+                matcher.appendReplacement(provenance, HexFormat.of().formatHex(sha256));
+            }
+            matcher.appendTail(provenance);
+            provenances.add(provenance.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return provenances;
+    }
+
+    private static String randomId(Random random) {
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < 13; i++) {
+            id.append((char) ('A' + random.nextInt(26)));
+        }
+        return id.toString();
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
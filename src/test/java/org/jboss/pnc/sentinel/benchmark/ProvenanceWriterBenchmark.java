@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceModule;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceWriter;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.quarkus.test.junit.QuarkusTest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the serialization throughput of the provenance with the {@link ProvenanceModule} serializers, through
+ * {@link ObjectMapperProvider#json()} and {@link ProvenanceWriter}, and with the introspection based serializers of
+ * Jackson: {@code mvn test -Pbenchmark -Dtest=ProvenanceWriterBenchmark}.
+ */
+@QuarkusTest
+@Slf4j
+class ProvenanceWriterBenchmark {
+
+    private static final long BUDGET = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    void benchmarkModuleSerializers() throws IOException {
+        Provenance provenance = ObjectMapperProvider.json()
+                .readValue(TestResources.asString("pnc/provenance/provenance.json"), Provenance.class);
+        ObjectMapper introspecting = introspectingMapper();
+        ObjectMapper module = ObjectMapperProvider.json();
+
+        byte[] expected = introspecting.writeValueAsBytes(provenance);
+        assertArrayEquals(expected, module.writeValueAsBytes(provenance));
+        assertArrayEquals(expected, ProvenanceWriter.toBytes(provenance));
+
+        long introspection = Benchmarks.fastest(BUDGET, () -> serialize(introspecting, provenance));
+        long serializers = Benchmarks.fastest(BUDGET, () -> serialize(module, provenance));
+        long writer = Benchmarks.fastest(BUDGET, () -> ProvenanceWriter.toBytes(provenance));
+
+        log.info(
+                "Provenance of {} bytes: introspection {} documents/s, module {} documents/s, writer {} documents/s",
+                expected.length,
+                perSecond(introspection),
+                perSecond(serializers),
+                perSecond(writer));
+    }
+
+    private static byte[] serialize(ObjectMapper mapper, Provenance provenance) {
+        try {
+            return mapper.writeValueAsBytes(provenance);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long perSecond(long nanos) {
+        return TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+    }
+
+    /**
+     * Configured like {@link ObjectMapperProvider#json()}, without the {@link ProvenanceModule}.
+     */
+    private static ObjectMapper introspectingMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .propertyNamingStrategy(PropertyNamingStrategies.LOWER_CAMEL_CASE)
+                .serializationInclusion(Include.NON_NULL)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceUtils;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Compares the sequential and parallel creation of the resource descriptors of the artifacts, to tune
+ * {@code provenance.descriptors.parallel-threshold}.
+ * </p>
+ *
+ * <p>
+ * The parallel creation runs in the common fork/join pool, so the crossover depends on the cores of the machine: run it
+ * where the service runs, e.g. {@code mvn test -Pbenchmark -Dtest=ResourceDescriptorsBenchmark}.
+ * </p>
+ */
+@QuarkusTest
+@Slf4j
+class ResourceDescriptorsBenchmark {
+
+    private static final int[] SIZES = { 1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000, 200_000 };
+
+    private static final long BUDGET = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * How much faster the parallel creation must be to pay for the worker threads it takes from the other requests.
+     */
+    private static final double MARGIN = 0.1;
+
+    @Test
+    void benchmarkParallelDescriptors() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        assumeTrue(parallelism > 1, "The descriptors are never created in parallel without a parallel common pool");
+        log.info("Benchmarking with a common pool parallelism of {}", parallelism);
+
+        // The smallest size from which the parallel creation is faster for all the bigger sizes as well
+        Integer crossover = null;
+        for (int size : SIZES) {
+            Collection<Artifact> artifacts = artifacts(size);
+            assertEquals(
+                    ProvenanceUtils.createArtifactsResourceDescriptors(artifacts, 0),
+                    ProvenanceUtils.createArtifactsResourceDescriptors(artifacts, 1));
+
+            long sequential = Benchmarks
+                    .fastest(BUDGET, () -> ProvenanceUtils.createArtifactsResourceDescriptors(artifacts, 0));
+            long parallel = Benchmarks
+                    .fastest(BUDGET, () -> ProvenanceUtils.createArtifactsResourceDescriptors(artifacts, 1));
+
+            log.info("{} artifacts: sequential {} us, parallel {} us", size, sequential / 1_000, parallel / 1_000);
+            if (parallel * (1 + MARGIN) >= sequential) {
+                crossover = null;
+            } else if (crossover == null) {
+                crossover = size;
+            }
+        }
+        log.info("Parallel creation pays off from about {} artifacts", crossover == null ? "never" : crossover);
+    }
+
+    private static Collection<Artifact> artifacts(int size) {
+        List<Artifact> artifacts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            artifacts.add(
+                    Artifact.builder()
+                            .id(String.valueOf(i))
+                            .filename("artifact-" + i + ".jar")
+                            .sha256("sha256-" + i)
+                            .identifier("org.example:artifact-" + i + ":jar:1.0")
+                            .purl("pkg:maven/org.example/artifact-" + i + "@1.0?type=jar")
+                            .publicUrl("https://example.com/artifact-" + i + ".jar")
+                            .build());
+        }
+        return artifacts;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class Salsa20Test {
+
+    /**
+     * The Salsa20/8 core test vector of RFC 7914 section 8.
+     */
+    @Test
+    void testSalsa20Core() {
+        byte[] input = HexFormat.of()
+                .parseHex(
+                        "7e879a214f3ec9867ca940e641718f26baee555b8c61c1b50df846116dcd3b1d"
+                                + "ee24f319df9b3d8514121e4b5ac5aa3276021d2909c74829edebc68db8b8c25e");
+        byte[] expected = HexFormat.of()
+                .parseHex(
+                        "a41f859c6608cc993b81cacb020cef05044b2181a2fd337dfd7b1c6396682f29"
+                                + "b4393168e3c9e6bcfe6bc5b7a06d96bae424cc102c91745c24ad673dc7618f81");
+
+        int[] x = new int[16];
+        for (int i = 0; i < 16; i++) {
+            x[i] = Salsa20.littleEndian(input, 4 * i);
+        }
+        Salsa20.core(x, 8);
+        byte[] output = new byte[64];
+        for (int i = 0; i < 16; i++) {
+            Salsa20.littleEndian(x[i], output, 4 * i);
+        }
+
+        assertArrayEquals(expected, output);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * The known answers of the secretbox and stream tests of NaCl.
+ */
+@QuarkusTest
+class SecretBoxTest {
+
+    private static final byte[] KEY = HexFormat.of()
+            .parseHex("1b27556473e985d462cd51197a9a46c76009549eac6474f206c4ee0844f68389");
+
+    private static final byte[] NONCE = HexFormat.of().parseHex("69696ee955b62b73cd62bda875fc73d68219e0036b7a0b37");
+
+    private static final byte[] MESSAGE = HexFormat.of()
+            .parseHex(
+                    "be075fc53c81f2d5cf141316ebeb0c7b5228c52a4c62cbd44b66849b64244ffc"
+                            + "e5ecbaaf33bd751a1ac728d45e6c61296cdc3c01233561f41db66cce314adb31"
+                            + "0e3be8250c46f06dceea3a7fa1348057e2f6556ad6b1318a024a838f21af1fde"
+                            + "048977eb48f59ffd4924ca1c60902e52f0a089bc76897040e082f93776384864" + "5e0705");
+
+    private static final byte[] BOX = HexFormat.of()
+            .parseHex(
+                    "f3ffc7703f9400e52a7dfb4b3d3305d98e993b9f48681273c29650ba32fc76ce"
+                            + "48332ea7164d96a4476fb8c531a1186ac0dfc17c98dce87b4da7f011ec48c972"
+                            + "71d2c20f9b928fe2270d6fb863d51738b48eeee314a7cc8ab932164548e526ae"
+                            + "90224368517acfeabd6bb3732bc0e9da99832b61ca01b6de56244a9e88d5f9b3"
+                            + "7973f622a43d14a6599b1f654cb45a74e355a5");
+
+    @Test
+    void testOpen() {
+        assertArrayEquals(MESSAGE, SecretBox.open(BOX, NONCE, KEY));
+    }
+
+    @Test
+    void testOpenRejectsTamperedBox() {
+        byte[] tag = BOX.clone();
+        tag[0] ^= 1;
+        assertNull(SecretBox.open(tag, NONCE, KEY));
+
+        byte[] ciphertext = BOX.clone();
+        ciphertext[ciphertext.length - 1] ^= 1;
+        assertNull(SecretBox.open(ciphertext, NONCE, KEY));
+
+        byte[] key = KEY.clone();
+        key[0] ^= 1;
+        assertNull(SecretBox.open(BOX, NONCE, key));
+    }
+
+    @Test
+    void testXSalsa20Stream() throws NoSuchAlgorithmException {
+        byte[] stream = SecretBox.xsalsa20(KEY, NONCE, 4194304);
+
+        assertEquals(
+                "662b9d0e3463029156069b12f918691a98f7dfb2ca0393c96bbfc6b1fbd630a2",
+                HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(stream)));
+    }
+}
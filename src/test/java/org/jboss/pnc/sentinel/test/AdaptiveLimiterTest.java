@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.sentinel.PncServiceConfig;
+import org.jboss.pnc.sentinel.PncServiceConfig.LimiterConfig;
+import org.jboss.pnc.sentinel.errors.ClientException;
+import org.jboss.pnc.sentinel.resilience.AdaptiveLimiter;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+@QuarkusTest
+class AdaptiveLimiterTest {
+
+    @Test
+    void testLimitDecreasesOnFailures() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(limiterConfig(Map.of()));
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(ClientException.class, () -> limiter.execute("getBuild", () -> {
+                throw new ClientException("PNC responded with an error");
+            }));
+        }
+
+        assertTrue(limiter.getStats().limit() < 20);
+    }
+
+    @Test
+    void testLimitIncreasesWhileFastAndUsed() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(
+                limiterConfig(
+                        Map.of("sentinel.pnc.limiter.initial-limit", "1", "sentinel.pnc.limiter.max-limit", "10")));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("build", limiter.execute("getBuild", () -> "build"));
+        }
+
+        // A single caller never uses more than one permit, the limit stops growing
+        assertEquals(3, limiter.getStats().limit());
+        assertEquals(0, limiter.getStats().inFlight());
+    }
+
+    @Test
+    void testLimitIsCappedToTheMaxConcurrency() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(
+                limiterConfig(
+                        Map.of("sentinel.pnc.limiter.initial-limit", "50", "sentinel.pnc.limiter.max-limit", "50")),
+                20);
+
+        assertEquals(20, limiter.getStats().limit());
+    }
+
+    @Test
+    void testExcessCallersTimeOut() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(
+                limiterConfig(
+                        Map.of(
+                                "sentinel.pnc.limiter.initial-limit",
+                                "1",
+                                "sentinel.pnc.limiter.max-limit",
+                                "1",
+                                "sentinel.pnc.limiter.queue-timeout",
+                                "PT0.1S")));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture
+                .supplyAsync(() -> limiter.execute("getDependencies", () -> {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "dependencies";
+                }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        assertThrows(ClientException.class, () -> limiter.execute("getBuild", () -> "build"));
+        assertEquals(1, limiter.getStats().rejected());
+
+        release.countDown();
+        assertEquals("dependencies", holder.get(10, TimeUnit.SECONDS));
+        assertEquals("build", limiter.execute("getBuild", () -> "build"));
+    }
+
+    private static LimiterConfig limiterConfig(Map<String, String> properties) {
+        return new SmallRyeConfigBuilder().withMapping(PncServiceConfig.class)
+                .withDefaultValues(properties)
+                .build()
+                .getConfigMapping(PncServiceConfig.class)
+                .limiter();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.sentinel.ArtifactProjection;
+import org.jboss.pnc.sentinel.client.ArtifactProjectionParser;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class ArtifactProjectionParserTest {
+
+    @Test
+    void testProjectionMatchesFullArtifact() throws IOException {
+        String json = TestResources.asString("pnc/provenance/buildDependencies.json");
+
+        List<ArtifactProjection> projections = ArtifactProjectionParser.parseArtifacts(stream(json));
+
+        assertEquals(expectedProjections(json), projections);
+    }
+
+    @Test
+    void testPageIsDecoded() throws IOException {
+        String artifacts = TestResources.asString("pnc/provenance/builtArtifacts.json");
+        String json = "{\"pageIndex\":3,\"pageSize\":100,\"totalPages\":5,\"totalHits\":402,\"content\":" + artifacts
+                + "}";
+
+        Page<ArtifactProjection> page = ArtifactProjectionParser.parsePage(stream(json));
+
+        assertEquals(3, page.getPageIndex());
+        assertEquals(100, page.getPageSize());
+        assertEquals(5, page.getTotalPages());
+        assertEquals(402, page.getTotalHits());
+        assertEquals(expectedProjections(artifacts), List.copyOf(page.getContent()));
+    }
+
+    @Test
+    void testEmptyPageIsDecoded() throws IOException {
+        Page<ArtifactProjection> page = ArtifactProjectionParser.parsePage(
+                stream("{\"pageIndex\":0,\"pageSize\":100,\"totalPages\":0,\"totalHits\":0,\"content\":[]}"));
+
+        assertEquals(0, page.getTotalPages());
+        assertEquals(List.of(), List.copyOf(page.getContent()));
+    }
+
+    private static List<ArtifactProjection> expectedProjections(String json) throws IOException {
+        List<Artifact> artifacts = ObjectMapperProvider.json().readValue(json, new TypeReference<>() {
+        });
+        return artifacts.stream().map(ArtifactProjection::of).toList();
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+import org.jboss.pnc.sentinel.signing.BatchSignature;
+import org.jboss.pnc.sentinel.signing.BatchSigner;
+import org.jboss.pnc.sentinel.signing.BlobSigner;
+import org.jboss.pnc.sentinel.signing.CosignKeySigner;
+import org.jboss.pnc.sentinel.signing.MerkleTree;
+import org.jboss.pnc.sentinel.signing.MerkleTree.InclusionProof;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class BatchSignerTest {
+
+    @Test
+    void testMerkleProofs() throws GeneralSecurityException {
+        for (int size = 1; size <= 33; size++) {
+            List<byte[]> digests = digests(size);
+            MerkleTree tree = new MerkleTree(digests);
+
+            for (int i = 0; i < size; i++) {
+                InclusionProof proof = tree.proof(i);
+                assertTrue(proof.path().size() <= 32 - Integer.numberOfLeadingZeros(size - 1));
+                assertTrue(MerkleTree.verify(digests.get(i), proof, tree.root()), "Proof " + i + " of " + size);
+                if (size > 1) {
+                    assertFalse(MerkleTree.verify(digests.get((i + 1) % size), proof, tree.root()));
+                    InclusionProof moved = new InclusionProof((i + 1) % size, size, proof.path());
+                    assertFalse(MerkleTree.verify(digests.get(i), moved, tree.root()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMerkleRootOfSingleDocument() throws GeneralSecurityException {
+        byte[] digest = digests(1).get(0);
+
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        sha256.update((byte) 0);
+        assertArrayEquals(sha256.digest(digest), new MerkleTree(List.of(digest)).root());
+    }
+
+    @Test
+    void testSignBatch() throws Exception {
+        KeyPair keyPair = keyPair();
+        CountingSigner signer = new CountingSigner(new CosignKeySigner(keyPair.getPrivate(), keyPair.getPublic()));
+
+        List<byte[]> documents = documents(100);
+        List<CompletableFuture<BatchSignature>> signatures = new ArrayList<>();
+        try (BatchSigner batchSigner = new BatchSigner(signer, Duration.ofMillis(200), 1000)) {
+            documents.forEach(document -> signatures.add(batchSigner.sign(document)));
+
+            for (int i = 0; i < documents.size(); i++) {
+                BatchSignature signature = signatures.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(i, signature.proof().leafIndex());
+                assertEquals(documents.size(), signature.proof().treeSize());
+                assertTrue(BatchSigner.verify(documents.get(i), signature, keyPair.getPublic()));
+                assertFalse(BatchSigner.verify(documents.get((i + 1) % 100), signature, keyPair.getPublic()));
+            }
+        }
+
+        // The whole batch was signed with a single signature
+        assertEquals(1, signer.signatures.get());
+    }
+
+    @Test
+    void testSignFullBatch() throws Exception {
+        KeyPair keyPair = keyPair();
+        CountingSigner signer = new CountingSigner(new CosignKeySigner(keyPair.getPrivate(), keyPair.getPublic()));
+
+        List<byte[]> documents = documents(25);
+        List<CompletableFuture<BatchSignature>> signatures = new ArrayList<>();
+        try (BatchSigner batchSigner = new BatchSigner(signer, Duration.ofHours(1), 10)) {
+            documents.forEach(document -> signatures.add(batchSigner.sign(document)));
+
+            // The full batches do not wait for the window
+            for (int i = 0; i < 20; i++) {
+                BatchSignature signature = signatures.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(10, signature.proof().treeSize());
+                assertTrue(BatchSigner.verify(documents.get(i), signature, keyPair.getPublic()));
+            }
+            assertFalse(signatures.get(20).isDone());
+        }
+
+        // The last batch is signed on close
+        BatchSignature last = signatures.get(24).get(10, TimeUnit.SECONDS);
+        assertEquals(5, last.proof().treeSize());
+        assertTrue(BatchSigner.verify(documents.get(24), last, keyPair.getPublic()));
+        assertEquals(3, signer.signatures.get());
+    }
+
+    @Test
+    void testVerifyFromBundle() throws Exception {
+        KeyPair keyPair = keyPair();
+        byte[] document = TestResources.asString("pnc/provenance/provenance.json").getBytes(StandardCharsets.UTF_8);
+
+        BatchSignature signature;
+        try (BatchSigner batchSigner = new BatchSigner(
+                new CosignKeySigner(keyPair.getPrivate(), keyPair.getPublic()),
+                Duration.ofMillis(10),
+                10)) {
+            batchSigner.sign(documents(1).get(0));
+            signature = batchSigner.sign(document).get(10, TimeUnit.SECONDS);
+        }
+
+        // Everything needed to verify the document is in the bundle
+        BatchSignature parsed = BatchSignature.fromBundleJson(signature.toBundleJson());
+
+        assertArrayEquals(signature.documentDigest(), parsed.documentDigest());
+        assertArrayEquals(signature.root(), parsed.root());
+        assertEquals(signature.proof(), parsed.proof());
+        assertArrayEquals(signature.signature(), parsed.signature());
+        assertEquals(signature.toBundleJson(), parsed.toBundleJson());
+        assertTrue(BatchSigner.verify(document, parsed, keyPair.getPublic()));
+        assertFalse(BatchSigner.verify(document, parsed, keyPair().getPublic()));
+        assertFalse(BatchSigner.verify(documents(1).get(0), parsed, keyPair.getPublic()));
+    }
+
+    @Test
+    void testMalformedBundle() {
+        for (String bundle : List.of(
+                "not json",
+                "{}",
+                "{\"base64Signature\":\"AA==\",\"merkle\":{\"leafIndex\":0,\"treeSize\":1}}",
+                "{\"base64Signature\":\"AA==\",\"merkle\":{\"documentDigest\":\"not hex\",\"root\":\"00\","
+                        + "\"leafIndex\":0,\"treeSize\":1,\"path\":[]}}")) {
+            assertThrows(ApplicationException.class, () -> BatchSignature.fromBundleJson(bundle), bundle);
+        }
+    }
+
+    private static KeyPair keyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static List<byte[]> documents(int count) {
+        List<byte[]> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(("{\"document\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        return documents;
+    }
+
+    private static List<byte[]> digests(int count) throws GeneralSecurityException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        List<byte[]> digests = new ArrayList<>(count);
+        for (byte[] document : documents(count)) {
+            digests.add(sha256.digest(document));
+        }
+        return digests;
+    }
+
+    private static class CountingSigner implements BlobSigner {
+
+        private final BlobSigner delegate;
+
+        private final AtomicInteger signatures = new AtomicInteger();
+
+        CountingSigner(BlobSigner delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SignedBlobResult signBlob(byte[] payload) throws IOException, InterruptedException {
+            signatures.incrementAndGet();
+            return delegate.signBlob(payload);
+        }
+
+        @Override
+        public SignedBlobResult signBlob(Path blobPath) throws IOException, InterruptedException {
+            signatures.incrementAndGet();
+            return delegate.signBlob(blobPath);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+import org.jboss.pnc.sentinel.signing.CosignKeySigner;
+import org.jboss.pnc.sentinel.signing.CosignKeys;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class CosignKeySignerTest {
+
+    private static final Path PRIVATE_KEY = Paths.get("src", "test", "resources", "cosign", "cosign-v1.key");
+
+    private static final Path PUBLIC_KEY = Paths.get("src", "test", "resources", "cosign", "cosign-v1.pub");
+
+    /**
+     * Decrypting the key is slow on purpose, so it is decrypted once for all the tests.
+     */
+    private static CosignKeySigner signer;
+
+    @ConfigProperty(name = "cosign.password")
+    String cosignPassword;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSignBlob() throws IOException, GeneralSecurityException {
+        byte[] provenance = TestResources.asString("pnc/provenance/provenance.json").getBytes(StandardCharsets.UTF_8);
+
+        SignedBlobResult result = signer().signBlob(provenance);
+
+        // Like the signature file of cosign sign-blob, the signature is Base64 encoded
+        byte[] signature = Base64.getDecoder().decode(result.signature());
+        assertTrue(verify(provenance, signature), "The signature does not verify with the public key");
+
+        JsonNode bundle = ObjectMapperProvider.json().readTree(result.bundleJson());
+        assertEquals(
+                new String(result.signature(), StandardCharsets.US_ASCII),
+                bundle.path("base64Signature").asText());
+    }
+
+    @Test
+    void testSignBlobFile() throws IOException, GeneralSecurityException {
+        byte[] provenance = TestResources.asString("pnc/provenance/provenance.json").getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(tempDir.resolve("provenance.json"), provenance);
+
+        SignedBlobResult result = signer().signBlob(file);
+
+        assertTrue(verify(provenance, Base64.getDecoder().decode(result.signature())));
+    }
+
+    @Test
+    void testSignEnvelope() throws IOException, GeneralSecurityException {
+        byte[] provenance = TestResources.asString("pnc/provenance/provenance.json").getBytes(StandardCharsets.UTF_8);
+
+        JsonNode envelope = ObjectMapperProvider.json()
+                .readTree(signer().signEnvelope(provenance, CosignKeySigner.IN_TOTO_PAYLOAD_TYPE));
+
+        assertEquals(CosignKeySigner.IN_TOTO_PAYLOAD_TYPE, envelope.path("payloadType").asText());
+        byte[] payload = Base64.getDecoder().decode(envelope.path("payload").asText());
+        assertArrayEquals(provenance, payload);
+        assertEquals(1, envelope.path("signatures").size());
+
+        // The signature is over the pre-authentication encoding, not the payload alone
+        byte[] signature = Base64.getDecoder().decode(envelope.path("signatures").get(0).path("sig").asText());
+        assertTrue(
+                verify(
+                        CosignKeySigner.preAuthenticationEncoding(CosignKeySigner.IN_TOTO_PAYLOAD_TYPE, payload),
+                        signature));
+        assertEquals(
+                "DSSEv1 28 application/vnd.in-toto+json 2 {}",
+                new String(
+                        CosignKeySigner.preAuthenticationEncoding(
+                                CosignKeySigner.IN_TOTO_PAYLOAD_TYPE,
+                                "{}".getBytes(StandardCharsets.UTF_8)),
+                        StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWrongPassword() {
+        ApplicationException ex = assertThrows(
+                ApplicationException.class,
+                () -> CosignKeys.readPrivateKey(PRIVATE_KEY, "wrong" + cosignPassword));
+        assertEquals("The Cosign private key could not be decrypted, the password is wrong", ex.getMessage());
+    }
+
+    @Test
+    void testMismatchedKeys() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        PrivateKey otherKey = generator.generateKeyPair().getPrivate();
+
+        assertThrows(
+                ApplicationException.class,
+                () -> new CosignKeySigner(otherKey, CosignKeys.readPublicKey(PUBLIC_KEY)));
+    }
+
+    private CosignKeySigner signer() {
+        if (signer == null) {
+            signer = CosignKeySigner.load(PRIVATE_KEY, PUBLIC_KEY, cosignPassword);
+        }
+        return signer;
+    }
+
+    private static boolean verify(byte[] payload, byte[] signature) throws GeneralSecurityException {
+        Signature verifier = Signature.getInstance("SHA256withECDSA");
+        verifier.initVerify(CosignKeys.readPublicKey(PUBLIC_KEY));
+        verifier.update(payload);
+        return verifier.verify(signature);
+    }
+}
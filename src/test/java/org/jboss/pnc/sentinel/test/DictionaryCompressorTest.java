@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.jboss.pnc.sentinel.compression.CompressionDictionary;
+import org.jboss.pnc.sentinel.compression.DictionaryCompressor;
+import org.jboss.pnc.sentinel.compression.DictionaryTrainer;
+import org.jboss.pnc.sentinel.errors.ApplicationException;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class DictionaryCompressorTest {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCompressWithDictionary() throws IOException {
+        DictionaryCompressor compressor = new DictionaryCompressor(
+                DictionaryTrainer.train(provenances(1, 50), CompressionDictionary.MAX_SIZE));
+
+        byte[] provenance = provenances(2, 1).get(0);
+        byte[] compressed = compressor.compress(provenance);
+
+        assertArrayEquals(provenance, compressor.decompress(compressed));
+        assertTrue(
+                compressed.length < gzip(provenance).length,
+                "A trained dictionary should compress better than gzip: " + compressed.length + " bytes vs "
+                        + gzip(provenance).length);
+    }
+
+    @Test
+    void testCompressWithoutDictionary() throws IOException {
+        DictionaryCompressor compressor = new DictionaryCompressor(null);
+
+        byte[] provenance = provenances(3, 1).get(0);
+        assertArrayEquals(provenance, compressor.decompress(compressor.compress(provenance)));
+    }
+
+    @Test
+    void testRetrainedDictionary() throws IOException {
+        CompressionDictionary old = DictionaryTrainer.train(provenances(4, 20), 4096);
+        old.save(tempDir.resolve("old.dict"));
+        CompressionDictionary retrained = DictionaryTrainer.train(provenances(5, 20), 8192);
+
+        byte[] provenance = provenances(6, 1).get(0);
+        byte[] compressed = new DictionaryCompressor(old).compress(provenance);
+
+        DictionaryCompressor compressor = new DictionaryCompressor(
+                retrained,
+                List.of(CompressionDictionary.load(tempDir.resolve("old.dict"))),
+                DictionaryCompressor.DEFAULT_LEVEL);
+        assertArrayEquals(provenance, compressor.decompress(compressed));
+        assertArrayEquals(provenance, compressor.decompress(compressor.compress(provenance)));
+
+        ApplicationException error = assertThrows(
+                ApplicationException.class,
+                () -> new DictionaryCompressor(retrained).decompress(compressed));
+        assertEquals(
+                "Data was compressed with the unknown dictionary " + Long.toHexString(old.id()),
+                error.getMessage());
+    }
+
+    @Test
+    void testDecompressedSizeIsBounded() {
+        byte[] zeros = new byte[1024 * 1024];
+        byte[] compressed = new DictionaryCompressor(null).compress(zeros);
+
+        DictionaryCompressor compressor = new DictionaryCompressor(
+                null,
+                List.of(),
+                DictionaryCompressor.DEFAULT_LEVEL,
+                zeros.length - 1);
+        ApplicationException error = assertThrows(ApplicationException.class, () -> compressor.decompress(compressed));
+        assertEquals(
+                "Compressed data decompresses to more than the maximum of " + (zeros.length - 1) + " bytes",
+                error.getMessage());
+
+        assertArrayEquals(
+                zeros,
+                new DictionaryCompressor(null, List.of(), DictionaryCompressor.DEFAULT_LEVEL, zeros.length)
+                        .decompress(compressed));
+    }
+
+    /**
+     * Variations of the expected provenance, with random build identifiers and checksums like real builds have.
+     */
+    private static List<byte[]> provenances(long seed, int count) throws IOException {
+        String template = TestResources.asString("pnc/provenance/provenance.json");
+        Random random = new Random(seed);
+        List<byte[]> provenances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Matcher matcher = SHA256.matcher(template.replace("BJ3TGDXPQWYAC", randomId(random)));
+            StringBuilder provenance = new StringBuilder();
+            while (matcher.find()) {
+                byte[] sha256 = new byte[32];
+                random.nextBytes(sha256);
+                matcher.appendReplacement(provenance, HexFormat.of().formatHex(sha256));
+            }
+            matcher.appendTail(provenance);
+            provenances.add(provenance.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return provenances;
+    }
+
+    private static String randomId(Random random) {
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < 13; i++) {
+            id.append((char) ('A' + random.nextInt(26)));
+        }
+        return id.toString();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
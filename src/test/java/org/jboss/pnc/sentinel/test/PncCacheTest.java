@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.Build;
+import org.jboss.pnc.sentinel.PncServiceConfig;
+import org.jboss.pnc.sentinel.cache.PncCache;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+class PncCacheTest {
+
+    private static final String PNC_BUILD_ID = "BJ3TGDXPQWYAC";
+
+    @Inject
+    PncServiceConfig config;
+
+    @Test
+    void testFinishedBuildIsFetchedOnce() throws IOException {
+        PncCache cache = new PncCache(config.cache());
+        Build build = ObjectMapperProvider.json()
+                .readValue(TestResources.asString("pnc/provenance/build.json"), Build.class);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(build, cache.getBuild(PNC_BUILD_ID, id -> {
+                calls.incrementAndGet();
+                return build;
+            }));
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(2, cache.getStats().get(PncCache.BUILDS).hitCount());
+        assertEquals(1, cache.getStats().get(PncCache.BUILDS).missCount());
+    }
+
+    @Test
+    void testArtifactsAreCachedReadOnly() throws IOException {
+        PncCache cache = new PncCache(config.cache());
+        Collection<Artifact> artifacts = ObjectMapperProvider.json()
+                .readValue(TestResources.asString("pnc/provenance/builtArtifacts.json"), new TypeReference<>() {
+                });
+        AtomicInteger calls = new AtomicInteger();
+
+        Collection<Artifact> cached = cache.getBuiltArtifacts(PNC_BUILD_ID, () -> true, id -> {
+            calls.incrementAndGet();
+            return artifacts;
+        });
+        cache.getBuiltArtifacts(PNC_BUILD_ID, () -> true, id -> {
+            calls.incrementAndGet();
+            return artifacts;
+        });
+
+        assertEquals(1, calls.get());
+        assertEquals(artifacts.size(), cached.size());
+        assertThrows(UnsupportedOperationException.class, cached::clear);
+    }
+
+    @Test
+    void testArtifactsExpiryFollowsBuildStatusOfTheLoad() {
+        PncCache cache = new PncCache(
+                new SmallRyeConfigBuilder().withMapping(PncServiceConfig.class)
+                        .withDefaultValue("sentinel.pnc.cache.running-build-ttl", "PT0S")
+                        .build()
+                        .getConfigMapping(PncServiceConfig.class)
+                        .cache());
+        AtomicInteger calls = new AtomicInteger();
+
+        // The build itself is never cached, the status given for the load decides
+        for (int i = 0; i < 2; i++) {
+            cache.getBuiltArtifacts(PNC_BUILD_ID, () -> true, id -> {
+                calls.incrementAndGet();
+                return List.of();
+            });
+            cache.getDependencies(PNC_BUILD_ID, () -> false, id -> {
+                calls.incrementAndGet();
+                return List.of();
+            });
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(1, cache.getStats().get(PncCache.BUILT_ARTIFACTS).hitCount());
+        assertEquals(0, cache.getStats().get(PncCache.DEPENDENCIES).hitCount());
+    }
+
+    @Test
+    void testNotFoundIsNotCached() {
+        PncCache cache = new PncCache(config.cache());
+        AtomicInteger calls = new AtomicInteger();
+
+        assertNull(cache.getBuildConfigRevision("1", 1, key -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.getBuildConfigRevision("1", 1, key -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(2, calls.get());
+    }
+}
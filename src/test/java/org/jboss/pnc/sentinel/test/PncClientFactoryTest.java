@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.pnc.client.BuildClient;
+import org.jboss.pnc.client.BuildConfigurationClient;
+import org.jboss.pnc.client.Configuration;
+import org.jboss.pnc.client.RemoteResourceException;
+import org.jboss.pnc.sentinel.PncServiceConfig;
+import org.jboss.pnc.sentinel.client.PncClientFactory;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+class PncClientFactoryTest {
+
+    @Inject
+    PncServiceConfig config;
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startPnc() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/pnc-rest/v2/", exchange -> {
+            authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            String resource = exchange.getRequestURI().getPath().contains("/revisions/")
+                    ? "pnc/provenance/buildConfigRevision.json"
+                    : "pnc/provenance/build.json";
+            byte[] body = TestResources.asString(resource).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopPnc() {
+        server.stop(0);
+    }
+
+    @Test
+    void testBasicAuthorizationIsSent() throws RemoteResourceException {
+        Configuration configuration = configuration().basicAuth(new Configuration.BasicAuth("user", "secret")).build();
+        String expected = "Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8));
+
+        fetch(configuration);
+
+        assertEquals(List.of(expected, expected), authorizations);
+    }
+
+    @Test
+    void testBearerAuthorizationIsSent() throws RemoteResourceException {
+        fetch(configuration().bearerToken("token").build());
+
+        assertEquals(List.of("Bearer token", "Bearer token"), authorizations);
+    }
+
+    private void fetch(Configuration configuration) throws RemoteResourceException {
+        try (PncClientFactory factory = new PncClientFactory(configuration, config.client());
+                BuildClient buildClient = factory.createBuildClient();
+                BuildConfigurationClient buildConfigurationClient = factory.createBuildConfigurationClient()) {
+            buildClient.getSpecific("BJ3TGDXPQWYAC");
+            buildConfigurationClient.getRevision("1", 1);
+        }
+    }
+
+    private Configuration.ConfigurationBuilder configuration() {
+        return Configuration.builder().protocol("http").host("127.0.0.1").port(server.getAddress().getPort());
+    }
+}
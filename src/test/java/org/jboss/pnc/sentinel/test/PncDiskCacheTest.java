@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.Build;
+import org.jboss.pnc.sentinel.PncServiceConfig;
+import org.jboss.pnc.sentinel.cache.PncCache;
+import org.jboss.pnc.sentinel.cache.PncDiskCache;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+@QuarkusTest
+class PncDiskCacheTest {
+
+    private static final String PNC_BUILD_ID = "BJ3TGDXPQWYAC";
+
+    private static final JavaType BUILD_TYPE = TypeFactory.defaultInstance().constructType(Build.class);
+
+    private static final JavaType STRING_TYPE = TypeFactory.defaultInstance().constructType(String.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEntriesSurviveReopening() throws IOException {
+        Build build = readBuild();
+
+        try (PncDiskCache cache = new PncDiskCache(directory, 1 << 20)) {
+            cache.put("builds:" + PNC_BUILD_ID, build);
+            cache.put("removed", "value");
+            cache.remove("removed");
+        }
+
+        try (PncDiskCache cache = new PncDiskCache(directory, 1 << 20)) {
+            assertEquals(build, cache.get("builds:" + PNC_BUILD_ID, BUILD_TYPE));
+            assertNull(cache.get("removed", STRING_TYPE));
+            assertEquals(1, cache.size());
+            assertEquals(1, cache.getStats().hitCount());
+        }
+
+        // A lost index is rebuilt from the data file
+        Files.delete(directory.resolve("pnc-cache.idx"));
+        try (PncDiskCache cache = new PncDiskCache(directory, 1 << 20)) {
+            assertEquals(build, cache.get("builds:" + PNC_BUILD_ID, BUILD_TYPE));
+            assertFalse(cache.contains("removed"));
+        }
+    }
+
+    @Test
+    void testCorruptedTailIsDropped() throws IOException {
+        try (PncDiskCache cache = new PncDiskCache(directory, 1 << 20)) {
+            cache.put("first", "one");
+            cache.put("second", "two");
+        }
+
+        // Simulate a crash in the middle of an append
+        Path data = directory.resolve("pnc-cache.dat");
+        long validSize = Files.size(data);
+        Files.write(data, new byte[] { 0, 0, 0, 42, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        try (PncDiskCache cache = new PncDiskCache(directory, 1 << 20)) {
+            assertEquals("one", cache.get("first", STRING_TYPE));
+            assertEquals("two", cache.get("second", STRING_TYPE));
+            assertEquals(validSize, cache.dataSize());
+
+            cache.put("third", "three");
+            assertEquals("three", cache.get("third", STRING_TYPE));
+        }
+    }
+
+    @Test
+    void testCompactionKeepsWithinMaxSize() throws IOException {
+        long maxSize = 64 * 1024;
+        String value = "x".repeat(1000);
+
+        try (PncDiskCache cache = new PncDiskCache(directory, maxSize)) {
+            for (int i = 0; i < 2000; i++) {
+                // Overwrite the same keys over and over, and keep adding new ones
+                cache.put("key-" + (i % 10), value + i);
+                cache.put("new-" + i, value);
+                assertTrue(cache.dataSize() <= maxSize);
+            }
+
+            assertEquals(value + 1999, cache.get("key-9", STRING_TYPE));
+            assertEquals(value, cache.get("new-1999", STRING_TYPE));
+            assertNull(cache.get("new-0", STRING_TYPE));
+            assertTrue(cache.getStats().evictionCount() > 0);
+        }
+
+        try (PncDiskCache cache = new PncDiskCache(directory, maxSize)) {
+            assertEquals(value + 1999, cache.get("key-9", STRING_TYPE));
+        }
+    }
+
+    @Test
+    void testFinishedBuildIsNotFetchedAgainAfterRestart() throws IOException {
+        Build build = readBuild();
+        Collection<Artifact> artifacts = ObjectMapperProvider.json()
+                .readValue(TestResources.asString("pnc/provenance/builtArtifacts.json"), new TypeReference<>() {
+                });
+        AtomicInteger calls = new AtomicInteger();
+
+        PncCache cache = new PncCache(diskCacheConfig().cache());
+        cache.getBuild(PNC_BUILD_ID, id -> {
+            calls.incrementAndGet();
+            return build;
+        });
+        cache.getBuiltArtifacts(PNC_BUILD_ID, () -> true, id -> {
+            calls.incrementAndGet();
+            return artifacts;
+        });
+        cache.close();
+
+        PncCache restarted = new PncCache(diskCacheConfig().cache());
+        assertEquals(build, restarted.getBuild(PNC_BUILD_ID, id -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(List.copyOf(artifacts), List.copyOf(restarted.getBuiltArtifactsIfPresent(PNC_BUILD_ID)));
+        assertEquals(2, calls.get());
+        assertEquals(2, restarted.getStats().get(PncCache.DISK).hitCount());
+        restarted.close();
+    }
+
+    @Test
+    void testOnlyListsOfFinishedBuildsArePersisted() throws IOException {
+        Collection<Artifact> artifacts = ObjectMapperProvider.json()
+                .readValue(TestResources.asString("pnc/provenance/builtArtifacts.json"), new TypeReference<>() {
+                });
+
+        // The builds themselves are never cached, the status given for the load decides
+        PncCache cache = new PncCache(diskCacheConfig().cache());
+        cache.getBuiltArtifacts(PNC_BUILD_ID, () -> true, id -> artifacts);
+        cache.getDependencies(PNC_BUILD_ID, () -> false, id -> artifacts);
+        cache.close();
+
+        PncCache restarted = new PncCache(diskCacheConfig().cache());
+        assertEquals(List.copyOf(artifacts), List.copyOf(restarted.getBuiltArtifactsIfPresent(PNC_BUILD_ID)));
+        assertNull(restarted.getDependenciesIfPresent(PNC_BUILD_ID));
+        restarted.close();
+    }
+
+    private PncServiceConfig diskCacheConfig() {
+        return new SmallRyeConfigBuilder().withMapping(PncServiceConfig.class)
+                .withDefaultValue("sentinel.pnc.cache.disk.enabled", "true")
+                .withDefaultValue("sentinel.pnc.cache.disk.directory", directory.toString())
+                .build()
+                .getConfigMapping(PncServiceConfig.class);
+    }
+
+    private static Build readBuild() throws IOException {
+        return ObjectMapperProvider.json().readValue(TestResources.asString("pnc/provenance/build.json"), Build.class);
+    }
+}
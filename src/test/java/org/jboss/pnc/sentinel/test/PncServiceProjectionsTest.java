@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.pnc.sentinel.ArtifactProjection;
+import org.jboss.pnc.sentinel.PncService;
+import org.jboss.pnc.sentinel.PncServiceConfig;
+import org.jboss.pnc.sentinel.cache.PncCache;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+class PncServiceProjectionsTest {
+
+    private static final String PNC_BUILD_ID = "BJ3TGDXPQWYAC";
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperProvider.json();
+
+    private static final Pattern PAGE_INDEX = Pattern.compile("pageIndex=(\\d+)");
+
+    private static final Pattern PAGE_SIZE = Pattern.compile("pageSize=(\\d+)");
+
+    @Inject
+    PncServiceConfig config;
+
+    private final AtomicInteger listingRequests = new AtomicInteger();
+
+    private HttpServer server;
+
+    private PncService pncService;
+
+    /**
+     * Serves the finished build of the test resources, with artifacts whose {@code size} is not a number: the full
+     * {@code Artifact} DTOs cannot be bound from them, only their projections can be decoded.
+     */
+    @BeforeEach
+    void startPnc() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/pnc-rest/v2/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/artifacts/built")) {
+                listingRequests.incrementAndGet();
+                respond(exchange, page("pnc/provenance/builtArtifacts.json", exchange));
+            } else if (path.endsWith("/artifacts/dependencies")) {
+                listingRequests.incrementAndGet();
+                respond(exchange, page("pnc/provenance/buildDependencies.json", exchange));
+            } else {
+                respond(exchange, TestResources.asString("pnc/provenance/build.json").getBytes());
+            }
+        });
+        server.start();
+        pncService = new PncService("127.0.0.1:" + server.getAddress().getPort(), config);
+    }
+
+    @AfterEach
+    void stopPnc() {
+        pncService.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testFinishedBuildProjectionsNeverDecodeArtifacts() {
+        int requests = 0;
+        for (int i = 0; i < 2; i++) {
+            List<ArtifactProjection> builtArtifacts = pncService.streamBuiltArtifactProjections(PNC_BUILD_ID).toList();
+            List<ArtifactProjection> dependencies = pncService.streamDependencyProjections(PNC_BUILD_ID).toList();
+
+            assertEquals(2, builtArtifacts.size());
+            assertEquals(880, dependencies.size());
+            if (i == 0) {
+                requests = listingRequests.get();
+            }
+        }
+
+        // The listings were requested once, then served from the projections cached for the finished build
+        assertEquals(requests, listingRequests.get());
+        assertEquals(1, pncService.getCacheStats().get(PncCache.BUILT_ARTIFACT_PROJECTIONS).hitCount());
+        assertEquals(1, pncService.getCacheStats().get(PncCache.DEPENDENCY_PROJECTIONS).hitCount());
+        assertEquals(0, pncService.getCacheStats().get(PncCache.BUILT_ARTIFACTS).loadCount());
+        assertEquals(0, pncService.getCacheStats().get(PncCache.DEPENDENCIES).loadCount());
+
+        // Whereas binding the full DTOs fails
+        assertThrows(RuntimeException.class, () -> pncService.getBuiltArtifacts(PNC_BUILD_ID));
+    }
+
+    private static byte[] page(String resource, HttpExchange exchange) throws IOException {
+        ArrayNode artifacts = (ArrayNode) OBJECT_MAPPER.readTree(TestResources.asString(resource));
+        String query = exchange.getRequestURI().getQuery();
+        int pageIndex = parameter(PAGE_INDEX, query);
+        int pageSize = parameter(PAGE_SIZE, query);
+
+        ObjectNode page = OBJECT_MAPPER.createObjectNode();
+        page.put("pageIndex", pageIndex);
+        page.put("pageSize", pageSize);
+        page.put("totalPages", (artifacts.size() + pageSize - 1) / pageSize);
+        page.put("totalHits", artifacts.size());
+        ArrayNode content = page.putArray("content");
+        for (int i = pageIndex * pageSize; i < Math.min(artifacts.size(), (pageIndex + 1) * pageSize); i++) {
+            content.add(((ObjectNode) artifacts.get(i)).put("size", "not a number"));
+        }
+        return OBJECT_MAPPER.writeValueAsBytes(page);
+    }
+
+    private static int parameter(Pattern parameter, String query) throws IOException {
+        Matcher matcher = parameter.matcher(query);
+        if (!matcher.find()) {
+            throw new IOException("Unexpected query " + query);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.jboss.pnc.dto.response.Page;
+import org.jboss.pnc.sentinel.client.PrefetchingPageIterator;
+import org.jboss.pnc.sentinel.errors.ClientException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class PrefetchingPageIteratorTest {
+
+    private static final int TOTAL_PAGES = 8;
+
+    private static final int PAGE_SIZE = 10;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPagesAreFetchedConcurrentlyAndReassembledInOrder() {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+
+        PrefetchingPageIterator<Integer> pages = new PrefetchingPageIterator<>(pageIndex -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                // Later pages respond faster, to shuffle the completion order
+                sleep(10L * (TOTAL_PAGES - pageIndex));
+                return page(pageIndex);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }, 4, executor);
+
+        List<Integer> items = pages.stream().collect(Collectors.toList());
+
+        assertEquals(IntStream.range(0, TOTAL_PAGES * PAGE_SIZE).boxed().collect(Collectors.toList()), items);
+        assertTrue(maxConcurrent.get() > 1);
+        assertTrue(maxConcurrent.get() <= 4);
+    }
+
+    @Test
+    void testPageFailureIsPropagated() {
+        PrefetchingPageIterator<Integer> pages = new PrefetchingPageIterator<>(pageIndex -> {
+            if (pageIndex == 3) {
+                throw new ClientException("Dependencies could not be retrieved because PNC responded with an error");
+            }
+            return page(pageIndex);
+        }, 2, executor);
+
+        assertThrows(ClientException.class, () -> pages.stream().count());
+    }
+
+    @Test
+    void testClosingStopsFetching() {
+        AtomicInteger fetched = new AtomicInteger();
+
+        PrefetchingPageIterator<Integer> pages = new PrefetchingPageIterator<>(pageIndex -> {
+            fetched.incrementAndGet();
+            return page(pageIndex);
+        }, 2, executor);
+
+        try (var stream = pages.stream()) {
+            assertEquals(List.of(0, 1, 2), stream.limit(3).collect(Collectors.toList()));
+        }
+
+        // The first page and at most the window
+        assertTrue(fetched.get() <= 3);
+        assertEquals(false, pages.hasNext());
+    }
+
+    @Test
+    void testInterruptionStopsBeforeTheNextPage() {
+        PrefetchingPageIterator<Integer> pages = new PrefetchingPageIterator<>(
+                PrefetchingPageIteratorTest::page,
+                2,
+                executor);
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            pages.next();
+        }
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(ClientException.class, pages::hasNext);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(pages.hasNext());
+    }
+
+    private static Page<Integer> page(int pageIndex) {
+        List<Integer> content = IntStream.range(pageIndex * PAGE_SIZE, (pageIndex + 1) * PAGE_SIZE)
+                .boxed()
+                .collect(Collectors.toList());
+        return new Page<>(pageIndex, PAGE_SIZE, TOTAL_PAGES, TOTAL_PAGES * PAGE_SIZE, content);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jboss.pnc.sentinel.provenance.utils.ProcessLimiter;
+import org.jboss.pnc.sentinel.provenance.utils.ProcessLimiterStats;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class ProcessLimiterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void testSlotsAreGrantedInArrivalOrder() {
+        ProcessLimiter limiter = new ProcessLimiter(2);
+
+        List<CompletableFuture<Void>> slots = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            slots.add(limiter.acquire(TIMEOUT));
+        }
+        assertTrue(slots.get(0).isDone());
+        assertTrue(slots.get(1).isDone());
+        assertFalse(slots.get(2).isDone());
+
+        ProcessLimiterStats stats = limiter.getStats();
+        assertEquals(2, stats.running());
+        assertEquals(3, stats.queued());
+
+        for (int i = 2; i < 5; i++) {
+            limiter.release();
+            assertTrue(slots.get(i).isDone());
+            if (i < 4) {
+                assertFalse(slots.get(i + 1).isDone());
+            }
+        }
+
+        // A new caller does not take a slot over the waiting ones
+        CompletableFuture<Void> late = limiter.acquire(TIMEOUT);
+        assertFalse(late.isDone());
+        limiter.release();
+        assertTrue(late.isDone());
+
+        for (int i = 0; i < 2; i++) {
+            limiter.release();
+        }
+        assertEquals(0, limiter.getStats().running());
+        assertEquals(6, limiter.getStats().granted());
+    }
+
+    @Test
+    void testExcessCallersTimeOut() throws Exception {
+        ProcessLimiter limiter = new ProcessLimiter(1);
+        limiter.acquire(TIMEOUT);
+
+        CompletableFuture<Void> slot = limiter.acquire(Duration.ofMillis(100));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> slot.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+        assertEquals(1, limiter.getStats().rejected());
+        assertEquals(0, limiter.getStats().queued());
+
+        // The slot is free again rather than granted to the caller which gave up
+        limiter.release();
+        assertEquals(0, limiter.getStats().running());
+        assertTrue(limiter.acquire(TIMEOUT).isDone());
+    }
+
+    @Test
+    void testQueueWaits() throws Exception {
+        ProcessLimiter limiter = new ProcessLimiter(1);
+        assertEquals(null, limiter.getStats().queueWaitP50());
+
+        limiter.acquire(TIMEOUT);
+        CompletableFuture<Void> slot = limiter.acquire(TIMEOUT);
+        Thread.sleep(100);
+        limiter.release();
+        slot.get(10, TimeUnit.SECONDS);
+
+        ProcessLimiterStats stats = limiter.getStats();
+        assertEquals(Duration.ZERO, stats.queueWaitP50());
+        assertTrue(stats.queueWaitP99().toMillis() >= 100, stats.queueWaitP99().toString());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.sentinel.provenance.utils.ProcessOutputDrain;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class ProcessOutputDrainTest {
+
+    @Test
+    void testDrainOutputs() throws Exception {
+        Process process = sh("printf signature; printf failure >&2; exit 3");
+        ProcessOutputDrain out = ProcessOutputDrain.start(process, process.getInputStream());
+        ProcessOutputDrain err = ProcessOutputDrain.start(process, process.getErrorStream());
+
+        assertEquals(3, process.waitFor());
+        assertArrayEquals("signature".getBytes(StandardCharsets.UTF_8), out.await().bytes());
+        assertEquals("failure", err.await().tail());
+        assertFalse(out.truncated());
+    }
+
+    @Test
+    void testKeepTail() throws Exception {
+        Process process = sh("head -c 200000 /dev/zero | tr '\\0' a; printf END");
+        ProcessOutputDrain out = ProcessOutputDrain.start(process, process.getInputStream(), 1000);
+
+        out.await();
+        assertEquals(200003, out.size());
+        assertTrue(out.truncated());
+        assertEquals(1000, out.bytes().length);
+        assertTrue(out.tail().startsWith("[...]aaa"));
+        assertTrue(out.tail().endsWith("aaaEND"));
+    }
+
+    @Test
+    void testDrainOutputsLargerThanPipes() throws Exception {
+        // Both outputs are well beyond the pipe buffers: the process only exits if both are drained
+        Process process = sh("head -c 1000000 /dev/zero >&2; head -c 1000000 /dev/zero; head -c 1000000 /dev/zero >&2");
+        ProcessOutputDrain out = ProcessOutputDrain.start(process, process.getInputStream());
+        ProcessOutputDrain err = ProcessOutputDrain.start(process, process.getErrorStream());
+
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(1_000_000, out.await().size());
+        assertEquals(2_000_000, err.await().size());
+        assertEquals(ProcessOutputDrain.DEFAULT_CAPACITY, err.bytes().length);
+    }
+
+    @Test
+    void testDrainCompletesWhileAChildKeepsThePipeOpen() throws Exception {
+        // The background sleep inherits the output, which only reaches its end once the sleep exits
+        Process process = sh("printf signature; sleep 10 & exit 0");
+        ProcessOutputDrain out = ProcessOutputDrain.start(process, process.getInputStream());
+
+        assertEquals(0, process.waitFor());
+        assertEquals("signature", out.completion().get(5, TimeUnit.SECONDS).tail());
+    }
+
+    @Test
+    void testClose() throws Exception {
+        Process process = sh("printf signature; sleep 10");
+        ProcessOutputDrain out = ProcessOutputDrain.start(process, process.getInputStream());
+
+        Thread.sleep(200);
+        out.close();
+        assertTrue(out.completion().isDone());
+        assertEquals("signature", out.tail());
+        process.destroyForcibly();
+    }
+
+    @Test
+    void testDrainConcurrentProcesses() throws Exception {
+        List<Process> processes = new ArrayList<>();
+        List<ProcessOutputDrain> drains = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Process process = sh("sleep 0.2; echo " + i + "; echo error " + i + " >&2");
+            processes.add(process);
+            drains.add(ProcessOutputDrain.start(process, process.getInputStream()));
+            drains.add(ProcessOutputDrain.start(process, process.getErrorStream()));
+        }
+
+        // The drains share a couple of threads, however many processes are running
+        long drainThreads = Thread.getAllStackTraces()
+                .keySet()
+                .stream()
+                .filter(thread -> thread.getName().startsWith("process-drain-"))
+                .count();
+        assertTrue(drainThreads <= 2, drainThreads + " drain threads");
+
+        for (int i = 0; i < processes.size(); i++) {
+            assertEquals(0, processes.get(i).waitFor());
+            assertEquals(i + "\n", drains.get(2 * i).await().tail());
+            assertEquals("error " + i + "\n", drains.get(2 * i + 1).await().tail());
+        }
+    }
+
+    private static Process sh(String script) throws IOException {
+        return new ProcessBuilder("sh", "-c", script).start();
+    }
+}
@@ -18,14 +18,21 @@
 package org.jboss.pnc.sentinel.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.pnc.sentinel.provenance.config.EndpointTemplate;
 import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfig;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfigProvider;
+import org.jboss.pnc.sentinel.provenance.config.ProvenanceFragments;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
 import org.junit.jupiter.api.Test;
 
 import io.quarkus.test.junit.QuarkusTest;
@@ -37,6 +44,9 @@ class ProvenanceConfigTest {
     @Inject
     ProvenanceConfig config;
 
+    @Inject
+    ProvenanceConfigProvider configProvider;
+
     @ConfigProperty(name = "cosign.password")
     String cosignPassword;
 
@@ -46,6 +56,32 @@ class ProvenanceConfigTest {
         assertEquals("https://slsa.dev/provenance/v1", config.slsa().spec().specs().get("1.1").predicateType());
     }
 
+    @Test
+    void testEndpointTemplate() {
+        for (String template : List.of(
+                "https://pnc/builds/{id}/logs/build",
+                "{id}",
+                "https://pnc/{id}/{id}",
+                "https://pnc/builds/logs",
+                "")) {
+            assertEquals(template.replace("{id}", "1234"), EndpointTemplate.compile(template).expand("1234"));
+        }
+    }
+
+    @Test
+    void testFragments() throws IOException {
+        ProvenanceFragments fragments = configProvider.getFragments();
+        assertSame(fragments, configProvider.getFragments());
+
+        assertEquals(
+                ObjectMapperProvider.json().writeValueAsString(fragments.builder()),
+                fragments.serializedBuilder().getValue());
+        assertEquals(configProvider.getPncComponentVersions(), fragments.builder().version());
+        assertEquals(
+                configProvider.getConfig().pnc().buildLog().endpoint().replace("{id}", "1234"),
+                configProvider.getBuildLogEndpoint("1234"));
+    }
+
     @Test
     void testSignAndVerifyCosignKeys() throws Exception {
         Path cosignPrivateKeyPath = Paths.get("src", "test", "resources", "cosign", "cosign-v1.key");
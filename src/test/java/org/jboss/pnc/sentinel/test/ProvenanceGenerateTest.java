@@ -17,29 +17,54 @@
  */
 package org.jboss.pnc.sentinel.test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.pnc.dto.Artifact;
 import org.jboss.pnc.dto.Build;
 import org.jboss.pnc.dto.BuildConfigurationRevision;
+import org.jboss.pnc.enums.BuildStatus;
+import org.jboss.pnc.sentinel.ArtifactProjection;
+import org.jboss.pnc.sentinel.PncBuildRevision;
 import org.jboss.pnc.sentinel.PncService;
+import org.jboss.pnc.sentinel.client.ArtifactProjectionParser;
+import org.jboss.pnc.sentinel.errors.NotFoundException;
+import org.jboss.pnc.sentinel.provenance.ProvenanceResult;
+import org.jboss.pnc.sentinel.provenance.ProvenanceService;
 import org.jboss.pnc.sentinel.provenance.config.ProvenanceConfigProvider;
 import org.jboss.pnc.sentinel.provenance.model.Provenance;
 import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper;
 import org.jboss.pnc.sentinel.provenance.utils.CosignWrapper.SignedBlobResult;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceFingerprint;
 import org.jboss.pnc.sentinel.provenance.utils.ProvenanceUtils;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceWriter;
 import org.jboss.pnc.sentinel.test.ProvenanceGenerateTest.CustomPncServiceProfile;
 import org.jboss.pnc.sentinel.test.utils.AlternativePncService;
 import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
@@ -77,6 +102,9 @@ class ProvenanceGenerateTest {
     @Inject
     private ProvenanceConfigProvider provenanceConfig;
 
+    @Inject
+    private ProvenanceService provenanceService;
+
     @ConfigProperty(name = "cosign.password")
     String cosignPassword;
 
@@ -113,6 +141,206 @@ class ProvenanceGenerateTest {
         assertTrue(result.getErrors().isEmpty(), "The errors from the schema validation is not empty");
     }
 
+    @Test
+    void testCreateProvenanceAsync() throws Exception {
+
+        // Fetch all the PNC inputs concurrently, then generate the provenance
+        Provenance provenance = ProvenanceUtils
+                .createFullPNCBuildProvenanceAsync(pncService, PNC_BUILD_ID, provenanceConfig)
+                .get(30, TimeUnit.SECONDS);
+
+        String generatedProvenance = ObjectMapperProvider.json().writeValueAsString(provenance);
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(
+                expectedProvenance.trim(),
+                generatedProvenance.trim(),
+                "The generated provenance is different from the expected one");
+    }
+
+    @Test
+    void testGenerateProvenance() throws Exception {
+        Provenance provenance = provenanceService.generate(PNC_BUILD_ID).get(30, TimeUnit.SECONDS);
+
+        String generatedProvenance = ObjectMapperProvider.json().writeValueAsString(provenance);
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(
+                expectedProvenance.trim(),
+                generatedProvenance.trim(),
+                "The generated provenance is different from the expected one");
+    }
+
+    @Test
+    void testGenerateProvenanceBatch() throws Exception {
+        List<String> buildIds = List.of(PNC_BUILD_ID, AlternativePncService.MISSING_BUILD_ID, PNC_BUILD_ID + "2");
+
+        List<ProvenanceResult> results = provenanceService.generateAll(buildIds, 2)
+                .collect()
+                .asList()
+                .await()
+                .atMost(Duration.ofSeconds(30));
+
+        assertEquals(3, results.size());
+        Map<String, ProvenanceResult> byBuildId = results.stream()
+                .collect(Collectors.toMap(ProvenanceResult::buildId, Function.identity()));
+        assertTrue(byBuildId.get(PNC_BUILD_ID).isSuccess());
+        assertTrue(byBuildId.get(PNC_BUILD_ID + "2").isSuccess());
+
+        ProvenanceResult missing = byBuildId.get(AlternativePncService.MISSING_BUILD_ID);
+        assertFalse(missing.isSuccess());
+        assertEquals(NotFoundException.class, missing.error().getClass());
+    }
+
+    @Test
+    void testGenerateProvenanceOfBuildRevision() throws Exception {
+        PncBuildRevision buildRevision = pncService.getBuildRevision(PNC_BUILD_ID);
+        Provenance provenance = provenanceService.generate(buildRevision).get(30, TimeUnit.SECONDS);
+
+        String generatedProvenance = ObjectMapperProvider.json().writeValueAsString(provenance);
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(
+                expectedProvenance.trim(),
+                generatedProvenance.trim(),
+                "The generated provenance is different from the expected one");
+
+        NotFoundException missing = assertThrows(
+                NotFoundException.class,
+                () -> pncService.getBuildRevision(AlternativePncService.MISSING_BUILD_ID));
+        assertEquals(404, missing.getCode());
+    }
+
+    @Test
+    void testCreateProvenanceFromProjections() throws IOException {
+        Build pncBuild = pncService.getBuild(PNC_BUILD_ID);
+        BuildConfigurationRevision pncBuildConfigRevision = pncService
+                .getBuildConfigRevision(PNC_BUILDCONFIG_ID, PNC_BUILDCONFIG_REV);
+        List<ArtifactProjection> builtArtifacts = ArtifactProjectionParser.parseArtifacts(
+                new ByteArrayInputStream(
+                        TestResources.asString("pnc/provenance/builtArtifacts.json").getBytes(StandardCharsets.UTF_8)));
+        List<ArtifactProjection> resolvedArtifacts = ArtifactProjectionParser.parseArtifacts(
+                new ByteArrayInputStream(
+                        TestResources.asString("pnc/provenance/buildDependencies_minimal.json")
+                                .getBytes(StandardCharsets.UTF_8)));
+
+        Provenance provenance = ProvenanceUtils.createFullPNCBuildProvenanceFromProjections(
+                pncBuild,
+                pncBuildConfigRevision,
+                builtArtifacts.stream(),
+                resolvedArtifacts.stream(),
+                provenanceConfig);
+
+        String generatedProvenance = ObjectMapperProvider.json().writeValueAsString(provenance);
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(
+                expectedProvenance.trim(),
+                generatedProvenance.trim(),
+                "The generated provenance is different from the expected one");
+    }
+
+    @Test
+    void testCreateProvenanceFromStreams() throws IOException {
+
+        // Consume the artifacts page by page instead of collecting them first
+        Provenance provenance = ProvenanceUtils.createFullPNCBuildProvenance(
+                pncService.getBuild(PNC_BUILD_ID),
+                pncService.getBuildConfigRevision(PNC_BUILDCONFIG_ID, PNC_BUILDCONFIG_REV),
+                pncService.streamBuiltArtifacts(PNC_BUILD_ID),
+                pncService.streamDependencies(PNC_BUILD_ID),
+                provenanceConfig);
+
+        String generatedProvenance = ObjectMapperProvider.json().writeValueAsString(provenance);
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(
+                expectedProvenance.trim(),
+                generatedProvenance.trim(),
+                "The generated provenance is different from the expected one");
+    }
+
+    @Test
+    void testWriteProvenance() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProvenanceUtils.writeFullPNCBuildProvenance(pncService, PNC_BUILD_ID, provenanceConfig, out);
+
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(
+                expectedProvenance.trim(),
+                out.toString(StandardCharsets.UTF_8),
+                "The written provenance is different from the expected one");
+    }
+
+    @Test
+    void testWriteProvenanceWithFragments() throws IOException {
+        Provenance provenance = ProvenanceUtils.createFullPNCBuildProvenance(
+                pncService.getBuild(PNC_BUILD_ID),
+                pncService.getBuildConfigRevision(PNC_BUILDCONFIG_ID, PNC_BUILDCONFIG_REV),
+                pncService.getBuiltArtifacts(PNC_BUILD_ID),
+                pncService.getDependencies(PNC_BUILD_ID),
+                provenanceConfig);
+
+        // The provenance holds the builder of the fragments, so it is spliced in rather than serialized
+        assertSame(provenanceConfig.getFragments().builder(), provenance.predicate().runDetails().builderInfo());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProvenanceWriter.write(
+                provenance,
+                provenance.subject().iterator(),
+                provenance.predicate().buildDefinition().resolvedDependencies().iterator(),
+                provenanceConfig.getFragments(),
+                out);
+        assertArrayEquals(ProvenanceWriter.toBytes(provenance), out.toByteArray());
+    }
+
+    @Test
+    void testWriteProvenanceToChannel() throws IOException {
+        Provenance provenance = ProvenanceUtils.createFullPNCBuildProvenance(
+                pncService.getBuild(PNC_BUILD_ID),
+                pncService.getBuildConfigRevision(PNC_BUILDCONFIG_ID, PNC_BUILDCONFIG_REV),
+                pncService.getBuiltArtifacts(PNC_BUILD_ID),
+                pncService.getDependencies(PNC_BUILD_ID),
+                provenanceConfig);
+
+        Path file = Files.createTempFile("provenance-", ".json");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ProvenanceWriter.write(
+                        provenance,
+                        provenance.subject().iterator(),
+                        provenance.predicate().buildDefinition().resolvedDependencies().iterator(),
+                        channel);
+            }
+
+            assertEquals(
+                    ObjectMapperProvider.json().writeValueAsString(provenance),
+                    Files.readString(file),
+                    "The written provenance is different from the serialized one");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testFingerprint() {
+        Build pncBuild = pncService.getBuild(PNC_BUILD_ID);
+        BuildConfigurationRevision pncBuildConfigRevision = pncService
+                .getBuildConfigRevision(PNC_BUILDCONFIG_ID, PNC_BUILDCONFIG_REV);
+
+        String fingerprint = ProvenanceFingerprint.of(pncBuild, pncBuildConfigRevision, provenanceConfig).orElseThrow();
+        assertEquals(64, fingerprint.length());
+        assertEquals(
+                fingerprint,
+                ProvenanceFingerprint.of(pncService.getBuild(PNC_BUILD_ID), pncBuildConfigRevision, provenanceConfig)
+                        .orElseThrow(),
+                "The fingerprint of the same inputs changed");
+
+        Build rebuilt = pncBuild.toBuilder().endTime(pncBuild.getEndTime().plusSeconds(1)).build();
+        assertNotEquals(
+                fingerprint,
+                ProvenanceFingerprint.of(rebuilt, pncBuildConfigRevision, provenanceConfig).orElseThrow());
+
+        // The artifacts of a running build may still change
+        Build running = pncBuild.toBuilder().status(BuildStatus.BUILDING).build();
+        assertTrue(ProvenanceFingerprint.of(running, pncBuildConfigRevision, provenanceConfig).isEmpty());
+    }
+
     @Test
     void testSignAndVerifyBlobBytes() throws IOException, InterruptedException {
         // Pre-generated provenance content
@@ -199,6 +427,44 @@ class ProvenanceGenerateTest {
         Files.deleteIfExists(Path.of("provenance.intoto.jsonl"));
     }
 
+    @Test
+    void testSignAndVerifyBlobBytesPiped() throws IOException, InterruptedException {
+        byte[] provenance = TestResources.asString("pnc/provenance/provenance.json").getBytes(StandardCharsets.UTF_8);
+        Path cosignPrivateKeyPath = Paths.get("src", "test", "resources", "cosign", "cosign-v1.key");
+        Path cosignPublicKeyPath = Paths.get("src", "test", "resources", "cosign", "cosign-v1.pub");
+        Path scratchDirectory = Files.createTempDirectory("cosign-scratch-");
+
+        try {
+            CosignWrapper cosign = new CosignWrapper(
+                    cosignPrivateKeyPath,
+                    cosignPublicKeyPath,
+                    cosignPassword,
+                    scratchDirectory);
+
+            // The provenance is piped to Cosign, and the signature read from its output
+            SignedBlobResult signedBlobResult = cosign.signBlob(provenance);
+            // A Base64 DER signature, without the trailing newline Cosign prints
+            assertEquals(0x30, Base64.getDecoder().decode(signedBlobResult.signature())[0]);
+            assertEquals(
+                    new String(signedBlobResult.signature(), StandardCharsets.US_ASCII),
+                    ObjectMapperProvider.json()
+                            .readTree(signedBlobResult.bundleJson())
+                            .path("base64Signature")
+                            .asText());
+
+            assertTrue(cosign.verifyBlob(provenance, signedBlobResult.signature(), null));
+            assertTrue(cosign.verifyBlob(provenance, null, signedBlobResult.bundleJson().getBytes()));
+            assertFalse(cosign.verifyBlob("{}".getBytes(), signedBlobResult.signature(), null));
+
+            // Nothing is left behind in the scratch directory
+            try (var files = Files.list(scratchDirectory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(scratchDirectory);
+        }
+    }
+
     @Test
     @EnabledIfSystemProperty(named = "pnc.api.host.url", matches = ".+")
     @EnabledIfSystemProperty(named = "pnc.build.id", matches = ".+")
@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+
+import org.jboss.pnc.sentinel.test.ProvenanceGenerateTest.CustomPncServiceProfile;
+import org.jboss.pnc.sentinel.test.utils.AlternativePncService;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+@QuarkusTest
+@TestProfile(CustomPncServiceProfile.class)
+class ProvenanceResourceTest {
+
+    private static final String PNC_BUILD_ID = "BJ3TGDXPQWYAC";
+
+    @Test
+    void testStreamProvenance() throws IOException {
+        String body = given().when()
+                .get("/provenances/{buildId}", PNC_BUILD_ID)
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .extract()
+                .asString();
+
+        String expectedProvenance = TestResources.asString("pnc/provenance/provenance.json");
+        assertEquals(expectedProvenance.trim(), body, "The streamed provenance is different from the expected one");
+    }
+
+    @Test
+    void testNotModified() {
+        String etag = given().when()
+                .get("/provenances/{buildId}", PNC_BUILD_ID)
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+        assertNotNull(etag);
+
+        String body = given().header("If-None-Match", etag)
+                .when()
+                .get("/provenances/{buildId}", PNC_BUILD_ID)
+                .then()
+                .statusCode(304)
+                .header("ETag", etag)
+                .extract()
+                .asString();
+        assertEquals("", body);
+
+        given().header("If-None-Match", "\"outdated\"")
+                .when()
+                .get("/provenances/{buildId}", PNC_BUILD_ID)
+                .then()
+                .statusCode(200)
+                .header("ETag", etag);
+    }
+
+    @Test
+    void testStreamMissingProvenance() {
+        given().when().get("/provenances/{buildId}", AlternativePncService.MISSING_BUILD_ID).then().statusCode(404);
+    }
+
+    @Test
+    void testSignWithoutKeys() {
+        given().when().get("/provenances/{buildId}/bundle", PNC_BUILD_ID).then().statusCode(501);
+    }
+}
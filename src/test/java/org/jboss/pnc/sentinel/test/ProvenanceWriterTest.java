@@ -0,0 +1,183 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.pnc.sentinel.provenance.model.BuildDefinition;
+import org.jboss.pnc.sentinel.provenance.model.Builder;
+import org.jboss.pnc.sentinel.provenance.model.Metadata;
+import org.jboss.pnc.sentinel.provenance.model.Predicate;
+import org.jboss.pnc.sentinel.provenance.model.Provenance;
+import org.jboss.pnc.sentinel.provenance.model.ResourceDescriptor;
+import org.jboss.pnc.sentinel.provenance.model.RunDetails;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceModule;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceWriter;
+import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
+import org.jboss.pnc.sentinel.utils.TestResources;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class ProvenanceWriterTest {
+
+    @Test
+    void testCanonicalBytesOfExpectedProvenance() throws IOException {
+        String expected = TestResources.asString("pnc/provenance/provenance.json").trim();
+
+        // The deserialized maps keep the document order, so the writer has to sort them
+        Provenance provenance = ObjectMapperProvider.json().readValue(expected, Provenance.class);
+
+        assertEquals(expected, new String(ProvenanceWriter.toBytes(provenance), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCanonicalBytesMatchObjectMapper() throws IOException {
+        Provenance provenance = provenance();
+
+        assertArrayEquals(
+                ObjectMapperProvider.json().writeValueAsBytes(provenance),
+                ProvenanceWriter.toBytes(provenance));
+    }
+
+    @Test
+    void testModuleSerializersMatchIntrospection() throws IOException {
+        Provenance provenance = provenance();
+
+        assertArrayEquals(
+                introspectingMapper().writeValueAsBytes(provenance),
+                ObjectMapperProvider.json().writeValueAsBytes(provenance));
+        // Nested records are serialized by the module too
+        assertArrayEquals(
+                introspectingMapper().writeValueAsBytes(List.of(provenance.predicate(), provenance.subject())),
+                ObjectMapperProvider.json().writeValueAsBytes(List.of(provenance.predicate(), provenance.subject())));
+    }
+
+    @Test
+    void testSmileRoundTrip() throws IOException {
+        String expected = TestResources.asString("pnc/provenance/provenance.json").trim();
+        Provenance provenance = ObjectMapperProvider.json().readValue(expected, Provenance.class);
+
+        byte[] smile = ObjectMapperProvider.smile().writeValueAsBytes(provenance);
+        assertTrue(
+                smile.length < expected.getBytes(StandardCharsets.UTF_8).length,
+                "The Smile encoding should be smaller than the JSON one");
+
+        Provenance decoded = ObjectMapperProvider.smile().readValue(smile, Provenance.class);
+        assertEquals(expected, ObjectMapperProvider.json().writeValueAsString(decoded));
+
+        Provenance other = provenance();
+        assertArrayEquals(
+                ObjectMapperProvider.json().writeValueAsBytes(other),
+                ObjectMapperProvider.json()
+                        .writeValueAsBytes(
+                                ObjectMapperProvider.smile()
+                                        .readValue(
+                                                ObjectMapperProvider.smile().writeValueAsBytes(other),
+                                                Provenance.class)));
+    }
+
+    /**
+     * Configured like {@link ObjectMapperProvider#json()}, without the {@link ProvenanceModule}.
+     */
+    private static ObjectMapper introspectingMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .propertyNamingStrategy(PropertyNamingStrategies.LOWER_CAMEL_CASE)
+                .serializationInclusion(Include.NON_NULL)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .build();
+    }
+
+    private static Provenance provenance() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("zeta", "last");
+        nested.put("Alpha", "uppercase sorts first");
+        nested.put("_under", "between cases");
+        nested.put("missing", null);
+        nested.put("list", List.of("b", "a", Map.of("y", "1", "x", "2")));
+
+        Map<String, Object> external = new HashMap<>();
+        external.put("nested", nested);
+        external.put("escapes", "quote \" backslash \\ newline \n tab \t control \u0001 unicode é中 😀");
+        external.put("boolean", Boolean.TRUE);
+        external.put("number", 42);
+
+        ResourceDescriptor descriptor = ResourceDescriptor.builder()
+                .name("artifact.jar")
+                .digest(Map.of("sha256", "abc"))
+                .uri("https://example.com/artifact.jar")
+                .downloadLocation("https://example.com/download")
+                .mediaType("application/java-archive")
+                .content("Y29udGVudA==")
+                .annotations(new TreeMap<>(Map.of("b", "2", "a", "1")))
+                .build();
+
+        return Provenance.builder()
+                .type("https://in-toto.io/Statement/v1")
+                .subject(List.of(descriptor, ResourceDescriptor.builder().name("empty").build()))
+                .predicateType("https://slsa.dev/provenance/v1")
+                .predicate(
+                        Predicate.builder()
+                                .buildDefinition(
+                                        BuildDefinition.builder()
+                                                .buildType("type")
+                                                .externalParameters(external)
+                                                .internalParameters(Map.of())
+                                                .resolvedDependencies(List.of(descriptor))
+                                                .build())
+                                .runDetails(
+                                        RunDetails.builder()
+                                                .builderInfo(
+                                                        Builder.builder()
+                                                                .id("pnc")
+                                                                .version(Map.of("b", "2", "a", "1", "c", "3"))
+                                                                .builderDependencies(List.of(descriptor))
+                                                                .build())
+                                                .metadata(
+                                                        Metadata.builder()
+                                                                .invocationId("id")
+                                                                .startedOn(Instant.ofEpochSecond(1700000000, 123000000))
+                                                                .finishedOn(Instant.ofEpochSecond(1700000100))
+                                                                .build())
+                                                .build())
+                                .build())
+                .build();
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.sentinel.PncService;
+import org.jboss.pnc.sentinel.PncServiceConfig;
+import org.jboss.pnc.sentinel.PncServiceConfig.CallConfig;
+import org.jboss.pnc.sentinel.errors.ClientException;
+import org.jboss.pnc.sentinel.resilience.AdaptiveLimiter;
+import org.jboss.pnc.sentinel.resilience.CircuitBreaker;
+import org.jboss.pnc.sentinel.resilience.ResilienceStats;
+import org.jboss.pnc.sentinel.resilience.ResilientCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+@QuarkusTest
+class ResilientCallTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testDefaults() {
+        CallConfig config = PncServiceConfig.defaults().resilience().get(PncService.GET_DEPENDENCIES);
+
+        assertFalse(config.hedge().enabled());
+        assertTrue(config.circuitBreaker().enabled());
+    }
+
+    @Test
+    void testSlowCallIsHedged() {
+        ResilientCall call = new ResilientCall(
+                PncService.GET_BUILD,
+                callConfig(
+                        Map.of(
+                                "sentinel.pnc.resilience.getBuild.hedge.enabled",
+                                "true",
+                                "sentinel.pnc.resilience.getBuild.hedge.delay",
+                                "PT0.1S")),
+                executor);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = call.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5000);
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+
+        ResilienceStats stats = call.getStats();
+        assertEquals(1, stats.hedgesFired());
+        assertEquals(1, stats.hedgesWon());
+    }
+
+    @Test
+    void testLosingCallIsInterrupted() throws InterruptedException {
+        ResilientCall call = new ResilientCall(
+                PncService.GET_BUILD,
+                callConfig(
+                        Map.of(
+                                "sentinel.pnc.resilience.getBuild.hedge.enabled",
+                                "true",
+                                "sentinel.pnc.resilience.getBuild.hedge.delay",
+                                "PT0.1S")),
+                executor);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertEquals("hedge", call.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return "primary";
+            }
+            return "hedge";
+        }));
+
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testHedgeTakesItsOwnPermit() {
+        Map<String, String> properties = Map.of(
+                "sentinel.pnc.resilience.getBuild.hedge.enabled",
+                "true",
+                "sentinel.pnc.resilience.getBuild.hedge.delay",
+                "PT0.1S",
+                "sentinel.pnc.limiter.initial-limit",
+                "2");
+        AdaptiveLimiter limiter = new AdaptiveLimiter(config(properties).limiter());
+        ResilientCall call = new ResilientCall(PncService.GET_BUILD, callConfig(properties), executor, limiter);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger inFlightOfHedge = new AtomicInteger();
+
+        assertEquals("hedge", limiter.execute(PncService.GET_BUILD, () -> call.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5000);
+                return "primary";
+            }
+            inFlightOfHedge.set(limiter.getStats().inFlight());
+            return "hedge";
+        })));
+
+        assertEquals(2, inFlightOfHedge.get());
+        assertEquals(1, call.getStats().hedgesFired());
+        assertEquals(0, limiter.getStats().inFlight());
+    }
+
+    @Test
+    void testHedgeIsSkippedWithoutPermit() {
+        Map<String, String> properties = Map.of(
+                "sentinel.pnc.resilience.getBuild.hedge.enabled",
+                "true",
+                "sentinel.pnc.resilience.getBuild.hedge.delay",
+                "PT0.1S",
+                "sentinel.pnc.limiter.initial-limit",
+                "1",
+                "sentinel.pnc.limiter.max-limit",
+                "1");
+        AdaptiveLimiter limiter = new AdaptiveLimiter(config(properties).limiter());
+        ResilientCall call = new ResilientCall(PncService.GET_BUILD, callConfig(properties), executor, limiter);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // The primary request holds the only permit
+        assertEquals("primary", limiter.execute(PncService.GET_BUILD, () -> call.execute(() -> {
+            attempts.incrementAndGet();
+            sleep(300);
+            return "primary";
+        })));
+
+        assertEquals(1, attempts.get());
+        ResilienceStats stats = call.getStats();
+        assertEquals(0, stats.hedgesFired());
+        assertEquals(1, stats.hedgesSkipped());
+        assertEquals(0, limiter.getStats().inFlight());
+    }
+
+    @Test
+    void testFastCallIsNotHedged() {
+        ResilientCall call = new ResilientCall(
+                PncService.GET_BUILD,
+                callConfig(Map.of("sentinel.pnc.resilience.getBuild.hedge.enabled", "true")),
+                executor);
+
+        assertEquals("primary", call.execute(() -> "primary"));
+        assertEquals(0, call.getStats().hedgesFired());
+    }
+
+    @Test
+    void testCircuitBreakerFailsFast() {
+        ResilientCall call = new ResilientCall(
+                PncService.GET_BUILD,
+                callConfig(
+                        Map.of(
+                                "sentinel.pnc.resilience.getBuild.circuit-breaker.request-volume-threshold",
+                                "4",
+                                "sentinel.pnc.resilience.getBuild.circuit-breaker.delay",
+                                "PT0.2S")),
+                executor);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ClientException.class, () -> call.execute(() -> {
+                attempts.incrementAndGet();
+                throw new ClientException("PNC responded with an error");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, call.getStats().circuitState());
+
+        // PNC is not called at all while the circuit is open
+        assertThrows(ClientException.class, () -> call.execute(() -> attempts.incrementAndGet()));
+        assertEquals(4, attempts.get());
+        assertEquals(1, call.getStats().rejected());
+
+        sleep(300);
+        assertEquals("recovered", call.execute(() -> "recovered"));
+        assertEquals(CircuitBreaker.State.CLOSED, call.getStats().circuitState());
+    }
+
+    private static CallConfig callConfig(Map<String, String> properties) {
+        return config(properties).resilience().get(PncService.GET_BUILD);
+    }
+
+    private static PncServiceConfig config(Map<String, String> properties) {
+        return new SmallRyeConfigBuilder().withMapping(PncServiceConfig.class)
+                .withDefaultValues(properties)
+                .build()
+                .getConfigMapping(PncServiceConfig.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
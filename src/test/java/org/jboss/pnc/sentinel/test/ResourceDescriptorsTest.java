@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.sentinel.provenance.model.ResourceDescriptor;
+import org.jboss.pnc.sentinel.provenance.utils.ProvenanceUtils;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class ResourceDescriptorsTest {
+
+    @Test
+    void testParallelDescriptorsKeepOrder() throws Exception {
+        Collection<Artifact> artifacts = artifacts(10_000);
+
+        List<ResourceDescriptor> sequential = ProvenanceUtils.createArtifactsResourceDescriptors(artifacts, 0);
+        // In a pool of its own, as the common pool has no parallelism on a single core and the work is not split
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<ResourceDescriptor> parallel;
+        try {
+            parallel = pool.submit(() -> ProvenanceUtils.createArtifactsResourceDescriptors(artifacts, 1)).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(artifacts.size(), parallel.size());
+        assertEquals(sequential, parallel);
+        assertEquals("artifact-0.jar", parallel.get(0).name());
+        assertEquals("artifact-9999.jar", parallel.get(9999).name());
+    }
+
+    private static Collection<Artifact> artifacts(int size) {
+        List<Artifact> artifacts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            artifacts.add(
+                    Artifact.builder()
+                            .id(String.valueOf(i))
+                            .filename("artifact-" + i + ".jar")
+                            .sha256("sha256-" + i)
+                            .identifier("org.example:artifact-" + i + ":jar:1.0")
+                            .purl("pkg:maven/org.example/artifact-" + i + "@1.0?type=jar")
+                            .publicUrl("https://example.com/artifact-" + i + ".jar")
+                            .build());
+        }
+        return artifacts;
+    }
+}
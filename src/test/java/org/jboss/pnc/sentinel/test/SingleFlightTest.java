@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright ${copyright-years} Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.sentinel.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.sentinel.concurrent.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> flights.execute("build", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            })));
+            started.await(10, TimeUnit.SECONDS);
+
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> flights.execute("build", () -> {
+                    calls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // Wait for the followers to join the flight before letting the leader complete
+            while (flights.getSharedCount() < 3) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(1, flights.getExecutedCount());
+        assertEquals(0, flights.getInFlightCount());
+    }
+
+    @Test
+    void testAsyncCallersShareThePendingResult() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.executeAsync("build", () -> pending);
+        CompletableFuture<String> second = flights
+                .executeAsync("build", () -> CompletableFuture.completedFuture("other"));
+        assertNotSame(first, second);
+
+        // A caller giving up on its result does not affect the others
+        first.cancel(false);
+        pending.complete("result");
+        assertTrue(first.isCancelled());
+        assertEquals("result", second.join());
+        assertEquals(0, flights.getInFlightCount());
+
+        // Nothing is retained once completed
+        assertEquals("other", flights.executeAsync("build", () -> CompletableFuture.completedFuture("other")).join());
+    }
+
+    @Test
+    void testFailureIsPropagatedAndNotRetained() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flights.execute("build", () -> {
+            throw new IllegalStateException("PNC is down");
+        }));
+        assertEquals("result", flights.execute("build", () -> "result"));
+
+        CompletableFuture<String> failed = flights
+                .executeAsync("build", () -> CompletableFuture.failedFuture(new IllegalStateException("PNC is down")));
+        ExecutionException ex = assertThrows(ExecutionException.class, failed::get);
+        assertEquals(IllegalStateException.class, ex.getCause().getClass());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -19,10 +19,12 @@ package org.jboss.pnc.sentinel.test.utils;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.stream.Stream;
 
 import org.jboss.pnc.dto.Artifact;
 import org.jboss.pnc.dto.Build;
 import org.jboss.pnc.dto.BuildConfigurationRevision;
+import org.jboss.pnc.sentinel.ArtifactProjection;
 import org.jboss.pnc.sentinel.PncService;
 import org.jboss.pnc.sentinel.errors.ClientException;
 import org.jboss.pnc.sentinel.utils.ObjectMapperProvider;
@@ -40,6 +42,11 @@ public class AlternativePncService extends PncService {
 
     private static final ObjectMapper OBJECT_MAPPER = ObjectMapperProvider.json();
 
+    /**
+     * Identifier of a build which cannot be found.
+     */
+    public static final String MISSING_BUILD_ID = "MISSING";
+
     public AlternativePncService() {
         super("apiUrl");
     }
@@ -50,6 +57,9 @@ public class AlternativePncService extends PncService {
 
     @Override
     public Build getBuild(String buildId) {
+        if (MISSING_BUILD_ID.equals(buildId)) {
+            return null;
+        }
         try {
             return OBJECT_MAPPER.readValue(TestResources.asString("pnc/provenance/build.json"), Build.class);
         } catch (IOException ex) {
@@ -93,4 +103,34 @@ public class AlternativePncService extends PncService {
             throw new ClientException("Dependencies could not be retrieved because PNC responded with an error", ex);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Collection<ArtifactProjection> getBuiltArtifactProjections(String buildID) {
+        return getBuiltArtifacts(buildID).stream().map(ArtifactProjection::of).toList();
+    }
+
+    @Override
+    public Collection<ArtifactProjection> getDependencyProjections(String buildID) {
+        return getDependencies(buildID).stream().map(ArtifactProjection::of).toList();
+    }
+
+    @Override
+    public Stream<Artifact> streamBuiltArtifacts(String buildID) {
+        return getBuiltArtifacts(buildID).stream();
+    }
+
+    @Override
+    public Stream<Artifact> streamDependencies(String buildID) {
+        return getDependencies(buildID).stream();
+    }
+
+    @Override
+    public Stream<ArtifactProjection> streamBuiltArtifactProjections(String buildID) {
+        return streamBuiltArtifacts(buildID).map(ArtifactProjection::of);
+    }
+
+    @Override
+    public Stream<ArtifactProjection> streamDependencyProjections(String buildID) {
+        return streamDependencies(buildID).map(ArtifactProjection::of);
+    }
+}